@@ -0,0 +1,174 @@
+package com.example;
+
+import com.example.api.PriceSeries;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Finds the cheapest charging windows in a price series after a {@link TariffModel} has
+ * been applied. The effective prices are summed into a prefix array once (O(n)), after
+ * that the cost of any window is one subtraction.
+ * <p>
+ * To find the cheapest window of a given length between two start positions we also keep
+ * a sparse table (range minimum) per window length. A table is built the first time its
+ * length is asked for, O(n log n) time and memory, and then every query for that length is
+ * O(1), no matter the start constraints. So the setup is O(n), and k different lengths cost
+ * O(k * n log n) in total. Windows longer than {@code maxSlots} get no table and are answered
+ * by a linear scan over the starts. Equal windows always resolve to the earliest one.
+ * <p>
+ * Sums are kept as whole nano-SEK (long), so equal windows compare as exactly equal and
+ * the answer doesn't depend on floating point rounding in the order of additions.
+ */
+public class ChargingOptimizer {
+
+    /**
+     * Effective prices are stored as {@code round(price * FIXED_POINT_SCALE)} and summed as
+     * longs. A long holds about 9.2e18 units, so the absolute sum of all effective prices in
+     * the series must stay below about 9.2e9 SEK/kWh, e.g. a year of quarter-hours at up to
+     * 250 000 SEK/kWh each. Prices are resolved to 1e-9 SEK.
+     */
+    private static final double FIXED_POINT_SCALE = 1e9;
+
+    private final PriceSeries serie;
+    private final long[] prefix;
+    //Sparse table for windows of length slots at index slots - 1, built on first use.
+    //Two threads may build the same table at once, the first one stored is kept
+    private final AtomicReferenceArray<int[][]> tables;
+
+    /**
+     * A charging window: first index, number of intervals and mean effective price (SEK/kWh).
+     */
+    public record Window(int start, int slots, double averagePrice) {
+
+        public int end() {
+            return start + slots;
+        }
+
+        /**
+         * What charging the given energy costs if it is spread evenly over the window.
+         */
+        public double cost(double kWh) {
+            return averagePrice * kWh;
+        }
+    }
+
+    /**
+     * An optimizer where every window length can get a table.
+     */
+    public ChargingOptimizer(PriceSeries serie, TariffModel tariff) {
+        this(serie, tariff, serie.size());
+    }
+
+    /**
+     * @param maxSlots Longest window that gets a table, longer windows are found in O(n) per query.
+     */
+    public ChargingOptimizer(PriceSeries serie, TariffModel tariff, int maxSlots) {
+        this.serie = serie;
+        this.prefix = new long[serie.size() + 1];
+        for (int i = 0; i < serie.size(); i++) {
+            prefix[i + 1] = prefix[i] + Math.round(tariff.effectivePrice(serie, i) * FIXED_POINT_SCALE);
+        }
+        this.tables = new AtomicReferenceArray<>(Math.max(0, Math.min(maxSlots, serie.size())));
+    }
+
+    public int size() {
+        return serie.size();
+    }
+
+    /**
+     * Mean effective price of the window starting at {@code start} with {@code slots} intervals, O(1).
+     */
+    public double averagePrice(int start, int slots) {
+        return windowSum(start, slots) / FIXED_POINT_SCALE / slots;
+    }
+
+    /**
+     * The cheapest window of the given number of intervals anywhere in the series.
+     * @return The window, or null if the series is shorter than the window.
+     */
+    public Window cheapest(int slots) {
+        return cheapest(slots, 0, serie.size() - slots);
+    }
+
+    /**
+     * The cheapest window of the given number of intervals that starts between
+     * {@code earliestStart} and {@code latestStart} (both included).
+     * @return The window, or null if no window fits between the limits.
+     */
+    public Window cheapest(int slots, int earliestStart, int latestStart) {
+        if (slots <= 0) {
+            throw new IllegalArgumentException("slots must be positive");
+        }
+        earliestStart = Math.max(0, earliestStart);
+        latestStart = Math.min(latestStart, serie.size() - slots);
+        if (earliestStart > latestStart) {
+            return null;
+        }
+        if (slots > tables.length()) {
+            int best = earliestStart;
+            for (int start = earliestStart + 1; start <= latestStart; start++) {
+                best = better(best, start, slots);
+            }
+            return new Window(best, slots, averagePrice(best, slots));
+        }
+        int[][] table = tables.get(slots - 1);
+        if (table == null) {
+            tables.compareAndSet(slots - 1, null, buildTable(slots));
+            table = tables.get(slots - 1);
+        }
+        int level = 31 - Integer.numberOfLeadingZeros(latestStart - earliestStart + 1);
+        int left = table[level][earliestStart];
+        int right = table[level][latestStart - (1 << level) + 1];
+        int best = better(left, right, slots);
+        return new Window(best, slots, averagePrice(best, slots));
+    }
+
+    /**
+     * The cheapest window for charging {@code kWh} when the charger can deliver at most
+     * {@code maxPowerKW}. The number of intervals is the smallest that fits the energy at
+     * full power, and the charging must be done before index {@code latestEnd}.
+     * @return The window, or null if the energy can't be charged between the limits.
+     */
+    public Window cheapestForEnergy(double kWh, double maxPowerKW, int earliestStart, int latestEnd) {
+        if (kWh <= 0 || maxPowerKW <= 0 || serie.isEmpty()) {
+            throw new IllegalArgumentException("energy and power must be positive");
+        }
+        double hoursPerSlot = serie.durationSeconds(0) / 3600.0;
+        int slots = (int) Math.ceil(kWh / (maxPowerKW * hoursPerSlot) - 1e-9);
+        return cheapest(Math.max(1, slots), earliestStart, latestEnd - Math.max(1, slots));
+    }
+
+    private long windowSum(int start, int slots) {
+        return prefix[start + slots] - prefix[start];
+    }
+
+    //The earlier start wins on equal sums
+    private int better(int a, int b, int slots) {
+        long sumA = windowSum(a, slots);
+        long sumB = windowSum(b, slots);
+        if (sumA != sumB) {
+            return sumA < sumB ? a : b;
+        }
+        return Math.min(a, b);
+    }
+
+    //table[k][i] is the best start among the 2^k starts beginning at i
+    private int[][] buildTable(int slots) {
+        int starts = serie.size() - slots + 1;
+        int levels = 32 - Integer.numberOfLeadingZeros(starts);
+        int[][] table = new int[levels][];
+        table[0] = new int[starts];
+        for (int i = 0; i < starts; i++) {
+            table[0][i] = i;
+        }
+        for (int k = 1; k < levels; k++) {
+            int half = 1 << (k - 1);
+            int count = starts - (1 << k) + 1;
+            table[k] = new int[count];
+            for (int i = 0; i < count; i++) {
+                table[k][i] = better(table[k - 1][i], table[k - 1][i + half], slots);
+            }
+        }
+        return table;
+    }
+}
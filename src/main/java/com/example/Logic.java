@@ -1,5 +1,8 @@
 package com.example;
 
+import com.example.api.Currency;
+import com.example.api.Resolution;
+
 import java.time.LocalDate;
 
 public class Logic {
@@ -33,4 +36,36 @@ public class Logic {
             throw new IllegalArgumentException("Not a valid charging time");
         }
     }
+
+    public static Resolution parseResolution(String resolution) {
+        //Accept a few ways of writing it, like 15m, 15min, 1h or 60m
+        return switch (resolution.toLowerCase()) {
+            case "15m", "15min" -> Resolution.QUARTER_HOUR;
+            case "1h", "60m", "60min" -> Resolution.HOUR;
+            default -> throw new IllegalArgumentException("Not a valid resolution");
+        };
+    }
+
+    public static Currency parseCurrency(String currency) {
+        //SEK and EUR come straight from the API, anything else is CODE=rate per EUR, like DKK=7.46
+        String upper = currency.toUpperCase();
+        if (upper.equals("SEK")) return Currency.SEK;
+        if (upper.equals("EUR")) return Currency.EUR;
+        String[] parts = upper.split("=");
+        if (parts.length != 2 || !parts[0].matches("[A-Z]{3}")) {
+            throw new IllegalArgumentException("Not a valid currency");
+        }
+        double rate;
+        try {
+            rate = Double.parseDouble(parts[1].replace(',', '.'));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a valid currency");
+        }
+        if (!(rate > 0) || Double.isInfinite(rate)) {
+            throw new IllegalArgumentException("Not a valid currency");
+        }
+        //Danish and Norwegian prices are written in øre, the rest in cent
+        String subunit = parts[0].equals("DKK") || parts[0].equals("NOK") ? "øre" : "cent";
+        return Currency.perEur(parts[0], subunit, rate);
+    }
 }
@@ -1,14 +1,23 @@
 package com.example;
 
+import com.example.api.ArchiveImporter;
+import com.example.api.Currency;
 import com.example.api.ElpriserAPI;
+import com.example.api.PriceForecast;
+import com.example.api.PriceSeries;
+import com.example.api.Resampler;
+import com.example.api.Resolution;
+import com.example.api.TimestampCodec;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
 import java.text.NumberFormat;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 
@@ -24,6 +33,11 @@ import java.util.Locale;
  * --date YYYY-MM-DD (optional, defaults to current date)
  * --sorted (optional, to display prices in descending order)
  * --charging 2h|4h|8h (optional, to find optimal charging windows)
+ * --forecast (optional, estimates tomorrow's prices if they are not published yet)
+ * --resolution 15m|1h (optional, shows the prices per quarter or per hour)
+ * --currency SEK|EUR|CODE=RATE (optional, shows prices in EUR or another currency per EUR)
+ * --import PATH (optional, fills the cache from a directory or tar of saved JSON files, then exits)
+ * --repl (optional, reads one set of flags per line and keeps the cache warm between them)
  * --help (optional, to display usage information)
  *
  * @author Daniel Marton
@@ -37,31 +51,35 @@ public class Main {
     public static final int CONVERT_TO_ORE = 100;
     public static final DateTimeFormatter HOUR_ONLY = DateTimeFormatter.ofPattern("HH");
     public static final DateTimeFormatter HOUR_AND_MINUTES = DateTimeFormatter.ofPattern("HH:mm");
+    public static final int FORECAST_HISTORY_DAYS = 7;
+    //The price lines are written by a renderer with reusable buffers, one per thread
+    private static final ThreadLocal<PriceRenderer> RENDERER = ThreadLocal.withInitial(PriceRenderer::new);
 
     public static void main(String[] args) {
         ElpriserAPI elpriserAPI = new ElpriserAPI();
+        Options options = Options.parse(args);
+        //In the REPL the same API (and its caches) is used for every command
+        if (options.repl()) {
+            new Repl(elpriserAPI).run(new BufferedReader(new InputStreamReader(System.in, System.out.charset())));
+            return;
+        }
+        run(options, elpriserAPI);
+    }
 
-        String zone = "";
-        int chargingTime = 0;
-        LocalDate date = LocalDate.now(); //Set as current date as default
-        boolean sorted = false;
-
-
+    public static void run(Options options, ElpriserAPI elpriserAPI) {
+        String zone = options.zone();
+        int chargingTime = options.chargingTime();
+        LocalDate date = options.date();
+        boolean sorted = options.sorted();
+        boolean forecast = options.forecast();
+        Resolution resolution = options.resolution(); //null means the default, hours for a full day of quarters
+        Path importPath = options.importPath();
+        Currency currency = options.currency();
 
-        //Start try catch block to catch exception
-        try {
-            for (int i = 0; i < args.length; i++) {
-                switch (args[i]) {
-                    case "--zone" -> zone = Logic.checkZone(args[++i].trim()); //Check if the zone is entered correctly
-                    case "--date" -> date = Logic.checkDate(args[++i].trim()); //Match date to see if the format is correct, then convert it to LocalDate
-                    case "--charging" -> chargingTime = Logic.parseCharging(args[++i].trim()); //Remove the "h" and capture the number in chargingTime if its 2, 4 or 8
-                    case "--sorted" -> sorted = true; //Set sorted to true, so the sorted method runs
-                    case "--help" -> helpMenu();
-                    default -> throw new IllegalArgumentException("unknown input"); //Set default exception to cover for any unknown input errors
-                }
-            }
-        } catch (IllegalArgumentException e) {
-            System.out.println(e.getMessage()); //Capture the exception here
+        //Importing is its own command, it fills the cache and then we are done
+        if (importPath != null) {
+            importArchive(elpriserAPI, importPath);
+            return;
         }
         //If there is no --zone command, it will be empty
         //I set it to SE1 as default and print the helpMenu()
@@ -73,9 +91,27 @@ public class Main {
         //Use the string zone from the args to get the enum
         ElpriserAPI.Prisklass prisklass = ElpriserAPI.Prisklass.valueOf(zone);
         //Here we get the days prices for specific zone
-        List<ElpriserAPI.Elpris> dagensPriser = elpriserAPI.getPriser(date, prisklass);
+        //If the user picked a resolution, the API converts each day once and caches the result
+        List<ElpriserAPI.Elpris> dagensPriser = resolution == null
+                ? elpriserAPI.getPriser(date, prisklass)
+                : elpriserAPI.getPriser(date, prisklass, resolution);
         //Here we get tomorrow's prices with date.plusDays(1)
-        List<ElpriserAPI.Elpris> framtidaPriser = elpriserAPI.getPriser(date.plusDays(1), prisklass); //
+        List<ElpriserAPI.Elpris> framtidaPriser = resolution == null
+                ? elpriserAPI.getPriser(date.plusDays(1), prisklass)
+                : elpriserAPI.getPriser(date.plusDays(1), prisklass, resolution);
+        //If tomorrow isn't published yet we can use a forecast instead, and tell the user about it
+        if (forecast && framtidaPriser.isEmpty()) {
+            //The forecast is built from the days in the cache, so we load the past week first.
+            //Only now, when we know tomorrow is missing, the order doesn't matter to the forecaster
+            for (int daysBack = 1; daysBack <= FORECAST_HISTORY_DAYS; daysBack++) {
+                elpriserAPI.getPriser(date.minusDays(daysBack), prisklass);
+            }
+            PriceForecast prognos = elpriserAPI.getPrognos(date.plusDays(1), prisklass);
+            if (!prognos.isEmpty()) {
+                framtidaPriser = atResolution(prognos.priser(), resolution);
+                System.out.printf("Obs: priserna för %s är en prognos (%d dagars historik)\n", prognos.datum(), prognos.antalDagar());
+            }
+        }
         //Create a list that will contain todays and tomorrow's prices
         List<ElpriserAPI.Elpris> allaPriser =  new ArrayList<>();
         //Now we add today's and tomorrow's prices to the new list
@@ -90,27 +126,28 @@ public class Main {
 
         //First we check if chargingTime is entered
         if (chargingTime != 0) {
-            printChargingWindow(allaPriser, chargingTime);
+            printChargingWindow(allaPriser, chargingTime, currency);
         } else if (sorted) {
             //Then we check if sorted is entered
-            printPricesSorted(allaPriser);
+            printPricesSorted(allaPriser, currency);
         } else {
             //If none of those, we print lowest, highest and average
-            printLowest(allaPriser);
-            printHighest(allaPriser);
-            printAveragePrices(allaPriser);
+            //Without --resolution we keep the old behaviour, with it the list already has the right resolution
+            printLowest(allaPriser, resolution == null ? defaultResolution(allaPriser) : resolution, currency);
+            printHighest(allaPriser, resolution == null ? defaultResolution(allaPriser) : resolution, currency);
+            printAveragePrices(allaPriser, currency);
         }
     }
 
 
     public static List<ElpriserAPI.Elpris> filterPrices (List<ElpriserAPI.Elpris> priser) {
-        ZoneId zoneId = ZoneId.of("Europe/Stockholm");
-        ZonedDateTime now = ZonedDateTime.now(zoneId);
-        ZonedDateTime until = now.plusHours(24);
+        //Compare as epoch seconds, so we don't need to create any ZonedDateTime for "now"
+        long now = Instant.now().getEpochSecond();
+        long until = now + 24 * 3600;
         List<ElpriserAPI.Elpris> filtered =  new ArrayList<>();
         //Here we check if the time is after or before the next 24h and adds them to a list that we return
         for (ElpriserAPI.Elpris elpris : priser) {
-            if (!elpris.timeEnd().isBefore(now) && !elpris.timeStart().isAfter(until)) {
+            if (elpris.timeEnd().toEpochSecond() >= now && elpris.timeStart().toEpochSecond() <= until) {
                 filtered.add(elpris);
             }
         }
@@ -118,28 +155,42 @@ public class Main {
     }
 
     public static void printAveragePrices(List<ElpriserAPI.Elpris> allaPriser) {
+        printAveragePrices(allaPriser, Currency.SEK);
+    }
+
+    public static void printAveragePrices(List<ElpriserAPI.Elpris> allaPriser, Currency currency) {
         double sum = 0;
         //Check if list is empty
         if (isEmpty(allaPriser)) return;
         //Loop and add all prices into sum
         for (ElpriserAPI.Elpris pris : allaPriser) {
-            sum += pris.sekPerKWh();
+            sum += currency.price(pris);
         }
-        //Calculate average and convert to öre, then print
+        //Calculate average and convert to öre (or cent), then print
         double average = (sum / allaPriser.size()) * CONVERT_TO_ORE;
-        System.out.printf("Medelpris: %s öre\n", PRICE_FORMAT.format(average));
+        PriceRenderer renderer = RENDERER.get().start(System.out, currency.subunit());
+        renderer.price("Medelpris: ", average);
+        renderer.flush();
     }
 
     public static void printPricesSorted(List<ElpriserAPI.Elpris> allaPriser) {
+        printPricesSorted(allaPriser, Currency.SEK);
+    }
+
+    public static void printPricesSorted(List<ElpriserAPI.Elpris> allaPriser, Currency currency) {
         //Check if list is empty
         if (isEmpty(allaPriser)) return;
-        //Sort the list, then reverse it to get descending order
-        allaPriser.sort(Comparator.comparing(ElpriserAPI.Elpris::sekPerKWh).reversed());
-        //Now we loop and print the sorted list
-        for (ElpriserAPI.Elpris pris : allaPriser) {
-            double convertedPrice = pris.sekPerKWh() * CONVERT_TO_ORE;
-            System.out.printf("%s-%s %s öre\n", pris.timeStart().format(HOUR_ONLY), pris.timeEnd().format(HOUR_ONLY), PRICE_FORMAT.format(convertedPrice));
+        //Get a descending view of the list, the caller's list is left as it is.
+        //The prices are converted in one go from the SEK or EUR column
+        PriceSeries serie = PriceSeries.of(allaPriser);
+        List<ElpriserAPI.Elpris> sorted = new RankedPrices(serie, currency.prices(serie)).descending();
+        //Now we loop and print the sorted list, the renderer writes it in big chunks instead of one printf per row
+        PriceRenderer renderer = RENDERER.get().start(System.out, currency.subunit());
+        for (ElpriserAPI.Elpris pris : sorted) {
+            double convertedPrice = currency.price(pris) * CONVERT_TO_ORE;
+            renderer.row("", pris.timeStart().getHour(), pris.timeEnd().getHour(), convertedPrice);
         }
+        renderer.flush();
     }
 
     public static boolean isEmpty(List<ElpriserAPI.Elpris> elpriser) {
@@ -152,121 +203,105 @@ public class Main {
     }
 
     public static void printChargingWindow(List<ElpriserAPI.Elpris> allaPriser, int chargingTime) {
+        printChargingWindow(allaPriser, chargingTime, Currency.SEK);
+    }
+
+    public static void printChargingWindow(List<ElpriserAPI.Elpris> allaPriser, int chargingTime, Currency currency) {
         //Check if list is empty
         if (isEmpty(allaPriser)) return;
 
-        double minSum = Double.MAX_VALUE;
-        int bestStart = 0;
+        //The optimizer sums the prices once (prefix sums), then every window costs O(1) to compare.
+        //Spot price in the chosen currency here, other tariffs can be plugged in with a different TariffModel
+        ChargingOptimizer optimizer = new ChargingOptimizer(PriceSeries.of(allaPriser), currency::price);
+        ChargingOptimizer.Window best = optimizer.cheapest(chargingTime);
+        int bestStart = best == null ? 0 : best.start(); //Save index for printing
         double average = 0;
-        //We do a sliding window algorithm, compares the sum of each window and saves the lowest price window
-        for (int i = 0; i <= allaPriser.size() - chargingTime; i++) {
+        if (best != null) {
+            //Sum the window in order, so the printed average is the same as the old sliding window
             double sum = 0;
             for (int j = 0; j < chargingTime; j++) {
-                sum += allaPriser.get(i + j).sekPerKWh();
-            }
-            if (sum < minSum) {
-                minSum = sum;
-                bestStart = i; //Save index for printing
+                sum += currency.price(allaPriser.get(bestStart + j));
             }
             //Calculate average price for the window
-            average = minSum / chargingTime;
+            average = sum / chargingTime;
         }
 
         ElpriserAPI.Elpris start = allaPriser.get(bestStart); //Set start time
         double convertedPrice = average * CONVERT_TO_ORE;
-        System.out.printf("Påbörja laddning kl %s för %d timmars laddning\nMedelpris för fönster: %s öre"
-                , start.timeStart().format(HOUR_AND_MINUTES), chargingTime, PRICE_FORMAT.format(convertedPrice));
+        System.out.printf("Påbörja laddning kl %s för %d timmars laddning\nMedelpris för fönster: %s %s"
+                , TimestampCodec.hourMinuteLabel(start.timeStart()), chargingTime, PRICE_FORMAT.format(convertedPrice), currency.subunit());
     }
 
     public static void printHighest(List<ElpriserAPI.Elpris> allaPriser) {
+        printHighest(allaPriser, defaultResolution(allaPriser));
+    }
+
+    public static void printHighest(List<ElpriserAPI.Elpris> allaPriser, Resolution resolution) {
+        printHighest(allaPriser, resolution, Currency.SEK);
+    }
+
+    public static void printHighest(List<ElpriserAPI.Elpris> allaPriser, Resolution resolution, Currency currency) {
         //Check if list is empty
         if (isEmpty(allaPriser)) return;
-        //Check if the list has 96 entries
-        if (allaPriser.size() == 96) {
-            printHighest96(allaPriser);
-            return;
-        }
-        //For normal data with 24 entries, we compare each price and saves the largest
-        ElpriserAPI.Elpris maxPrice = allaPriser.getFirst();
-        for (ElpriserAPI.Elpris pris : allaPriser) {
-            if (pris.sekPerKWh() > maxPrice.sekPerKWh()) {
+        //Quarters are merged into hours by the Resampler when the resolution asks for it
+        List<ElpriserAPI.Elpris> priser = atResolution(allaPriser, resolution);
+        //Compare each price and save the largest, the first one wins on ties
+        ElpriserAPI.Elpris maxPrice = priser.getFirst();
+        for (ElpriserAPI.Elpris pris : priser) {
+            if (currency.price(pris) > currency.price(maxPrice)) {
                 maxPrice = pris;
             }
         }
-        double convertedPrice = maxPrice.sekPerKWh() * CONVERT_TO_ORE;
-        System.out.printf("Högsta pris: %s-%s %s öre\n", maxPrice.timeStart().format(HOUR_ONLY),
-                                                            maxPrice.timeEnd().format(HOUR_ONLY),
-                                                            PRICE_FORMAT.format(convertedPrice));
+        double convertedPrice = currency.price(maxPrice) * CONVERT_TO_ORE;
+        PriceRenderer renderer = RENDERER.get().start(System.out, currency.subunit());
+        renderer.row("Högsta pris: ", maxPrice.timeStart().getHour(), maxPrice.timeEnd().getHour(), convertedPrice);
+        renderer.flush();
     }
 
-    public static void printHighest96(List<ElpriserAPI.Elpris> allaPriser) {
-        double max = 0;
-        int maxIndex = 0;
-        //This is a sweet little algorithm
-        for (int hour = 0; hour < 24; hour++) {                     //First we loop 24 times, this is the 24 current hours
-            double sum = 0;
-            for (int j = 0; j < 4; j++) {                         //Now we loop 4 times, since there is 4 quarters for each hour
-                sum += allaPriser.get(hour * 4 + j).sekPerKWh(); //We save the sum and uses the (hour * 4) to start at the
-            }                                                   //correct hour. We add +j to iterate each of the 4 quarters
-            double average = sum / 4;                          // We save the sum of the prices of the quarters and
-            if (max < average) {                              // divide by 4 to get the hours average price.
-                max = average;                               // Now we can compare and save the max average to print
-                maxIndex = hour;                            // We also want to save the index for the start hour
-            }
-        }
-        ElpriserAPI.Elpris start = allaPriser.get(maxIndex * 4); //We need to * 4 again to end up in the correct spot
-        ElpriserAPI.Elpris end = allaPriser.get(maxIndex * 4 + 3); //Add 3 to get the end time
-        double convertedPrice = max * CONVERT_TO_ORE;
-        System.out.printf("Högsta pris: %s-%s %s öre\n",
-                start.timeStart().format(HOUR_ONLY),
-                end.timeEnd().format(HOUR_ONLY),
-                PRICE_FORMAT.format(convertedPrice)
-        );
+    public static void printLowest(List<ElpriserAPI.Elpris> allaPriser) {
+        printLowest(allaPriser, defaultResolution(allaPriser));
     }
 
-    public static void printLowest(List<ElpriserAPI.Elpris> allaPriser) {
+    public static void printLowest(List<ElpriserAPI.Elpris> allaPriser, Resolution resolution) {
+        printLowest(allaPriser, resolution, Currency.SEK);
+    }
+
+    public static void printLowest(List<ElpriserAPI.Elpris> allaPriser, Resolution resolution, Currency currency) {
         //This is the same as printHighest but < instead of >
         if (isEmpty(allaPriser)) return;
-        if (allaPriser.size() == 96) {
-            printLowest96(allaPriser);
-            return;
-        }
+        List<ElpriserAPI.Elpris> priser = atResolution(allaPriser, resolution);
 
-        ElpriserAPI.Elpris minPrice = allaPriser.getFirst();
-        for (ElpriserAPI.Elpris pris : allaPriser) {
-            if (pris.sekPerKWh() < minPrice.sekPerKWh()) {
+        ElpriserAPI.Elpris minPrice = priser.getFirst();
+        for (ElpriserAPI.Elpris pris : priser) {
+            if (currency.price(pris) < currency.price(minPrice)) {
                 minPrice = pris;
             }
         }
-        double convertedPrice = minPrice.sekPerKWh() * CONVERT_TO_ORE;
-        System.out.printf("Lägsta pris: %s-%s %s öre\n", minPrice.timeStart().format(HOUR_ONLY),
-                                                            minPrice.timeEnd().format(HOUR_ONLY),
-                                                            PRICE_FORMAT.format(convertedPrice));
+        double convertedPrice = currency.price(minPrice) * CONVERT_TO_ORE;
+        PriceRenderer renderer = RENDERER.get().start(System.out, currency.subunit());
+        renderer.row("Lägsta pris: ", minPrice.timeStart().getHour(), minPrice.timeEnd().getHour(), convertedPrice);
+        renderer.flush();
     }
 
-    public static void printLowest96(List<ElpriserAPI.Elpris> allaPriser) {
-        double min = Double.MAX_VALUE;
-        int minIndex = 0;
+    public static Resolution defaultResolution(List<ElpriserAPI.Elpris> allaPriser) {
+        //A full day of quarters (96 entries) has always been shown per hour, other lists as they are (null)
+        return allaPriser.size() == 96 ? Resolution.HOUR : null;
+    }
 
-        for (int hour = 0; hour < 24; hour++) {
-            double sum = 0;
-            for (int q = 0; q < 4; q++) {
-                sum += allaPriser.get(hour * 4 + q).sekPerKWh();
-            }
-            double average = sum / 4;
-            if (average < min) {
-                min = average;
-                minIndex = hour;
-            }
-        }
+    public static List<ElpriserAPI.Elpris> atResolution(List<ElpriserAPI.Elpris> allaPriser, Resolution resolution) {
+        //null means keep the prices as they came from the API
+        if (resolution == null) return allaPriser;
+        return Resampler.resample(PriceSeries.of(allaPriser), resolution).toList();
+    }
 
-        ElpriserAPI.Elpris start = allaPriser.get(minIndex * 4);
-        ElpriserAPI.Elpris end = allaPriser.get(minIndex * 4 + 3);
-        double convertedPrice = min * CONVERT_TO_ORE;
-        System.out.printf("Lägsta pris: %s-%s %s öre\n",
-                start.timeStart().format(HOUR_ONLY),
-                end.timeEnd().format(HOUR_ONLY),
-                PRICE_FORMAT.format(convertedPrice));
+    public static void importArchive(ElpriserAPI elpriserAPI, Path importPath) {
+        try {
+            ArchiveImporter.Result result = new ArchiveImporter(elpriserAPI).importera(importPath);
+            System.out.printf("Importerade %d dagar (%d prisintervall) på %d ms, %d filer hoppades över, %d misslyckades\n",
+                    result.dagar(), result.intervall(), result.millis(), result.hoppadeÖver(), result.misslyckade());
+        } catch (IOException e) {
+            System.out.println("Kunde inte importera " + importPath + ": " + e.getMessage());
+        }
     }
 
     public static void helpMenu(){
@@ -276,6 +311,11 @@ public class Main {
         System.out.println("--date YYYY-MM-DD");
         System.out.println("--sorted prints a sorted list");
         System.out.println("--charging 2h/4h/8h/");
+        System.out.println("--forecast estimates tomorrow's prices if they are not published");
+        System.out.println("--resolution 15m/1h");
+        System.out.println("--currency SEK/EUR/DKK=7.46");
+        System.out.println("--import PATH imports saved prices into the cache");
+        System.out.println("--repl interactive mode, type the flags one line at a time");
     }
 
 }
@@ -0,0 +1,74 @@
+package com.example;
+
+import com.example.api.Currency;
+import com.example.api.Resolution;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * The command line flags, parsed once. Used by Main for a normal run and by the REPL
+ * for every command line, so both understand exactly the same flags.
+ *
+ * @param zone SE1-SE4, or empty if --zone was missing or wrong.
+ * @param chargingTime Hours of charging (2, 4 or 8), 0 if not asked for.
+ * @param resolution null means the default, hours for a full day of quarters.
+ */
+public record Options(
+        String zone,
+        int chargingTime,
+        LocalDate date,
+        boolean sorted,
+        boolean forecast,
+        Resolution resolution,
+        Path importPath,
+        Currency currency,
+        boolean repl
+) {
+
+    private static final Set<String> FLAGS_WITH_VALUE = Set.of("--zone", "--date", "--charging", "--resolution", "--currency", "--import");
+
+    /**
+     * Parses the flags. Like before, a bad flag prints its error and the flags before it are kept.
+     * @throws IllegalArgumentException If a flag that needs a value is the last argument.
+     */
+    public static Options parse(String[] args) {
+        String zone = "";
+        int chargingTime = 0;
+        LocalDate date = LocalDate.now(); //Set as current date as default
+        boolean sorted = false;
+        boolean forecast = false;
+        Resolution resolution = null;
+        Path importPath = null;
+        Currency currency = Currency.SEK;
+        boolean repl = false;
+
+        for (int i = 0; i < args.length; i++) {
+            //A flag without its value is an error for the whole line, not just one flag
+            if (FLAGS_WITH_VALUE.contains(args[i]) && i + 1 == args.length) {
+                throw new IllegalArgumentException(args[i] + " saknar ett värde");
+            }
+            //Start try catch block to catch exception
+            try {
+                switch (args[i]) {
+                    case "--zone" -> zone = Logic.checkZone(args[++i].trim()); //Check if the zone is entered correctly
+                    case "--date" -> date = Logic.checkDate(args[++i].trim()); //Match date to see if the format is correct, then convert it to LocalDate
+                    case "--charging" -> chargingTime = Logic.parseCharging(args[++i].trim()); //Remove the "h" and capture the number in chargingTime if its 2, 4 or 8
+                    case "--sorted" -> sorted = true; //Set sorted to true, so the sorted method runs
+                    case "--forecast" -> forecast = true; //Fill in tomorrow with a forecast if it's missing
+                    case "--resolution" -> resolution = Logic.parseResolution(args[++i].trim()); //15m or 1h
+                    case "--currency" -> currency = Logic.parseCurrency(args[++i].trim()); //SEK, EUR or for example DKK=7.46
+                    case "--import" -> importPath = Path.of(args[++i].trim()); //Directory or tar with yyyy/MM-dd_SEx.json files
+                    case "--repl" -> repl = true; //Interactive mode, see Repl
+                    case "--help" -> Main.helpMenu();
+                    default -> throw new IllegalArgumentException("unknown input"); //Set default exception to cover for any unknown input errors
+                }
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage()); //Capture the exception here
+                break;
+            }
+        }
+        return new Options(zone, chargingTime, date, sorted, forecast, resolution, importPath, currency, repl);
+    }
+}
@@ -0,0 +1,265 @@
+package com.example;
+
+import com.example.api.Currency;
+import com.example.api.ElpriserAPI;
+import com.example.api.PriceSeries;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Monthly statistics over long price series (years of quarter-hours), computed in parallel
+ * with fork/join. The series is split on day boundaries, every piece computes a partial
+ * result per month, and the partial results are merged. Merging is associative, so the
+ * split points don't change the result (apart from rounding in the sums).
+ * <p>
+ * For every month we get mean/min/max, the mean for peak and off-peak hours, and the mean
+ * of each day's cheapest charging window. Prices are in the aggregator's {@link Currency},
+ * converted once per series from the cached columns.
+ */
+public class PriceAggregator {
+
+    //Below this many days we stop splitting and just loop
+    private static final int DAYS_PER_TASK = 16;
+
+    private final int peakStartHour;
+    private final int peakEndHour;
+    private final int windowHours;
+    private final ForkJoinPool pool;
+    private final Currency currency;
+
+    /**
+     * Result for one month. Prices are per kWh in the aggregator's currency.
+     */
+    public record MonthStats(
+            YearMonth month,
+            int count,
+            double mean,
+            double min,
+            double max,
+            double peakMean,
+            double offPeakMean,
+            double meanCheapestWindow,
+            int days
+    ) {}
+
+    /**
+     * Peak hours 06-22 and 2h charging windows, on the common fork/join pool.
+     */
+    public PriceAggregator() {
+        this(6, 22, 2, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param peakStartHour First local hour counted as peak.
+     * @param peakEndHour First local hour after the peak period.
+     * @param windowHours Length of the daily cheapest window.
+     * @param pool Pool that runs the tasks.
+     */
+    public PriceAggregator(int peakStartHour, int peakEndHour, int windowHours, ForkJoinPool pool) {
+        this(peakStartHour, peakEndHour, windowHours, pool, Currency.SEK);
+    }
+
+    /**
+     * Same as above, but with prices in another currency, e.g. {@link Currency#EUR}.
+     */
+    public PriceAggregator(int peakStartHour, int peakEndHour, int windowHours, ForkJoinPool pool, Currency currency) {
+        if (peakStartHour < 0 || peakEndHour > 24 || peakStartHour > peakEndHour || windowHours <= 0) {
+            throw new IllegalArgumentException("invalid peak hours or window");
+        }
+        this.peakStartHour = peakStartHour;
+        this.peakEndHour = peakEndHour;
+        this.windowHours = windowHours;
+        this.pool = pool;
+        this.currency = currency;
+    }
+
+    /**
+     * Monthly statistics for one series, sorted by month.
+     */
+    public List<MonthStats> aggregate(PriceSeries serie) {
+        int[] dayStarts = dayStarts(serie);
+        Partial partial = pool.invoke(new AggregateTask(serie, currency.prices(serie), dayStarts, 0, dayStarts.length - 1));
+        return partial.toList();
+    }
+
+    /**
+     * Monthly statistics for several zones at once. All zones and all their months are
+     * computed in the same pool, so the work is spread over every core.
+     */
+    public Map<ElpriserAPI.Prisklass, List<MonthStats>> aggregate(Map<ElpriserAPI.Prisklass, PriceSeries> zones) {
+        Map<ElpriserAPI.Prisklass, AggregateTask> tasks = new EnumMap<>(ElpriserAPI.Prisklass.class);
+        for (Map.Entry<ElpriserAPI.Prisklass, PriceSeries> zone : zones.entrySet()) {
+            int[] dayStarts = dayStarts(zone.getValue());
+            tasks.put(zone.getKey(), new AggregateTask(zone.getValue(), currency.prices(zone.getValue()), dayStarts, 0, dayStarts.length - 1));
+        }
+        return pool.invoke(new RecursiveTask<>() {
+            @Override
+            protected Map<ElpriserAPI.Prisklass, List<MonthStats>> compute() {
+                invokeAll(tasks.values());
+                Map<ElpriserAPI.Prisklass, List<MonthStats>> result = new EnumMap<>(ElpriserAPI.Prisklass.class);
+                tasks.forEach((zone, task) -> result.put(zone, task.join().toList()));
+                return result;
+            }
+        });
+    }
+
+    //Index of the first row of every local day, plus the size at the end
+    private static int[] dayStarts(PriceSeries serie) {
+        List<Integer> starts = new ArrayList<>();
+        long previousDay = Long.MIN_VALUE;
+        for (int i = 0; i < serie.size(); i++) {
+            long day = localDay(serie, i);
+            if (day != previousDay) {
+                starts.add(i);
+                previousDay = day;
+            }
+        }
+        int[] result = new int[starts.size() + 1];
+        for (int i = 0; i < starts.size(); i++) {
+            result[i] = starts.get(i);
+        }
+        result[starts.size()] = serie.size();
+        return result;
+    }
+
+    private static long localDay(PriceSeries serie, int index) {
+        return Math.floorDiv(serie.startEpochSecond(index) + serie.startOffsetSeconds(index), 86400L);
+    }
+
+    private static int localHour(PriceSeries serie, int index) {
+        return (int) (Math.floorMod(serie.startEpochSecond(index) + serie.startOffsetSeconds(index), 86400L) / 3600);
+    }
+
+    //Splits a range of days in half until it is small enough, then loops over it.
+    //RecursiveTask is Serializable, but the tasks never leave the pool, so the fields are transient
+    private class AggregateTask extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient PriceSeries serie;
+        private final transient double[] prices;
+        private final transient int[] dayStarts;
+        private final int firstDay;
+        private final int endDay;
+
+        AggregateTask(PriceSeries serie, double[] prices, int[] dayStarts, int firstDay, int endDay) {
+            this.serie = serie;
+            this.prices = prices;
+            this.dayStarts = dayStarts;
+            this.firstDay = firstDay;
+            this.endDay = endDay;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (endDay - firstDay <= DAYS_PER_TASK) {
+                Partial partial = new Partial();
+                for (int day = firstDay; day < endDay; day++) {
+                    addDay(partial, serie, prices, dayStarts[day], dayStarts[day + 1]);
+                }
+                return partial;
+            }
+            int middle = (firstDay + endDay) >>> 1;
+            AggregateTask left = new AggregateTask(serie, prices, dayStarts, firstDay, middle);
+            AggregateTask right = new AggregateTask(serie, prices, dayStarts, middle, endDay);
+            left.fork();
+            Partial rightResult = right.compute();
+            return left.join().merge(rightResult);
+        }
+    }
+
+    private void addDay(Partial partial, PriceSeries serie, double[] prices, int from, int to) {
+        YearMonth month = YearMonth.from(LocalDate.ofEpochDay(localDay(serie, from)));
+        Accumulator acc = partial.months.computeIfAbsent(month, m -> new Accumulator());
+        for (int i = from; i < to; i++) {
+            double price = prices[i];
+            acc.count++;
+            acc.sum += price;
+            if (price < acc.min) acc.min = price;
+            if (price > acc.max) acc.max = price;
+            int hour = localHour(serie, i);
+            if (hour >= peakStartHour && hour < peakEndHour) {
+                acc.peakSum += price;
+                acc.peakCount++;
+            } else {
+                acc.offPeakSum += price;
+                acc.offPeakCount++;
+            }
+        }
+        //Cheapest window within the day. The window length is fixed and each day is only looked at once,
+        //so a plain sliding sum is enough here (ChargingOptimizer builds prefix sums for repeated queries)
+        long slotSeconds = Math.max(1, serie.durationSeconds(from));
+        int length = (int) Math.max(1, windowHours * 3600L / slotSeconds);
+        if (to - from >= length) {
+            double sum = 0;
+            for (int i = from; i < from + length; i++) {
+                sum += prices[i];
+            }
+            double best = sum;
+            for (int i = from + length; i < to; i++) {
+                sum += prices[i] - prices[i - length];
+                best = Math.min(best, sum);
+            }
+            acc.windowSum += best / length;
+            acc.windowDays++;
+        }
+        acc.days++;
+    }
+
+    //Running totals for one month, all fields can be added together
+    private static class Accumulator {
+        int count;
+        double sum;
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        double peakSum;
+        int peakCount;
+        double offPeakSum;
+        int offPeakCount;
+        double windowSum;
+        int windowDays;
+        int days;
+
+        void add(Accumulator other) {
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            peakSum += other.peakSum;
+            peakCount += other.peakCount;
+            offPeakSum += other.offPeakSum;
+            offPeakCount += other.offPeakCount;
+            windowSum += other.windowSum;
+            windowDays += other.windowDays;
+            days += other.days;
+        }
+    }
+
+    //Partial result for a range of days, one accumulator per month
+    private static class Partial {
+        final Map<YearMonth, Accumulator> months = new TreeMap<>();
+
+        Partial merge(Partial other) {
+            other.months.forEach((month, acc) -> months.computeIfAbsent(month, m -> new Accumulator()).add(acc));
+            return this;
+        }
+
+        List<MonthStats> toList() {
+            List<MonthStats> result = new ArrayList<>();
+            months.forEach((month, acc) -> result.add(new MonthStats(month, acc.count,
+                    acc.sum / acc.count, acc.min, acc.max,
+                    acc.peakCount == 0 ? Double.NaN : acc.peakSum / acc.peakCount,
+                    acc.offPeakCount == 0 ? Double.NaN : acc.offPeakSum / acc.offPeakCount,
+                    acc.windowDays == 0 ? Double.NaN : acc.windowSum / acc.windowDays,
+                    acc.days)));
+            return result;
+        }
+    }
+}
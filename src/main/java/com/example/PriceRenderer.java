@@ -0,0 +1,150 @@
+package com.example;
+
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.text.DecimalFormatSymbols;
+
+/**
+ * Writes Main's price lines ("HH-HH 12,34 öre") without printf. Every line is put together
+ * in a reusable char buffer, and when the buffer is full it is encoded into a reusable byte
+ * buffer and written to the stream in one go. Prices are formatted by hand for the usual
+ * case (0 to 999,99 öre), anything else (negative, large, exactly half an öre) goes through
+ * {@link Main#PRICE_FORMAT}, so the output is byte for byte the same as the printf version.
+ * <p>
+ * A renderer is not thread safe, Main keeps one per thread.
+ */
+public class PriceRenderer {
+
+    private static final int CHARS = 8192;
+    private static final String DEFAULT_UNIT = "öre";
+    //Outside this range the fast path would need grouping or a minus sign
+    private static final double MAX_FAST = 999.99;
+    //How close to x,xx5 we let NumberFormat decide, double math can't tell which side it is
+    private static final double TIE_MARGIN = 1e-6;
+
+    private final char decimalSeparator;
+    private final CharBuffer chars = CharBuffer.allocate(CHARS);
+    private ByteBuffer bytes = ByteBuffer.allocate(CHARS * 2);
+    private PrintStream out;
+    private String subunit = DEFAULT_UNIT;
+    private String unit = " " + DEFAULT_UNIT + "\n";
+    private CharsetEncoder encoder;
+
+    public PriceRenderer() {
+        this.decimalSeparator = DecimalFormatSymbols.getInstance(Main.SWEDISH).getDecimalSeparator();
+    }
+
+    /**
+     * Starts writing to a stream, the encoder is reused as long as the charset is the same.
+     */
+    public PriceRenderer start(PrintStream out) {
+        return start(out, DEFAULT_UNIT);
+    }
+
+    /**
+     * Same as {@link #start(PrintStream)}, but the lines end with another unit, like "cent".
+     */
+    public PriceRenderer start(PrintStream out, String subunit) {
+        this.out = out;
+        //Only build a new line ending when the unit changes
+        if (!this.subunit.equals(subunit)) {
+            this.subunit = subunit;
+            this.unit = " " + subunit + "\n";
+        }
+        Charset charset = out.charset();
+        if (encoder == null || !encoder.charset().equals(charset)) {
+            //PrintStream replaces characters it can't encode, so we do the same
+            encoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            bytes = ByteBuffer.allocate((int) Math.ceil(CHARS * encoder.maxBytesPerChar()));
+        }
+        chars.clear();
+        return this;
+    }
+
+    /**
+     * Same as {@code printf("%s%s-%s %s öre\n", prefix, HH, HH, PRICE_FORMAT.format(ore))}.
+     */
+    public void row(String prefix, int startHour, int endHour, double ore) {
+        ensureRoom(prefix.length() + 6 + 32 + unit.length());
+        chars.put(prefix);
+        twoDigits(startHour);
+        chars.put('-');
+        twoDigits(endHour);
+        chars.put(' ');
+        price(ore);
+        chars.put(unit);
+    }
+
+    /**
+     * Same as {@code printf("%s%s öre\n", prefix, PRICE_FORMAT.format(ore))}.
+     */
+    public void price(String prefix, double ore) {
+        ensureRoom(prefix.length() + 32 + unit.length());
+        chars.put(prefix);
+        price(ore);
+        chars.put(unit);
+    }
+
+    /**
+     * Writes whatever is left in the buffer to the stream.
+     */
+    public void flush() {
+        chars.flip();
+        encoder.reset();
+        while (true) {
+            bytes.clear();
+            boolean done = !encoder.encode(chars, bytes, true).isOverflow();
+            if (done) {
+                encoder.flush(bytes);
+            }
+            out.write(bytes.array(), 0, bytes.position());
+            if (done) {
+                break;
+            }
+        }
+        chars.clear();
+        out.flush();
+    }
+
+    private void ensureRoom(int length) {
+        if (chars.remaining() < length) {
+            flush();
+        }
+    }
+
+    private void twoDigits(int value) {
+        chars.put((char) ('0' + value / 10));
+        chars.put((char) ('0' + value % 10));
+    }
+
+    private void price(double ore) {
+        if (!(ore >= 0 && ore <= MAX_FAST) || (ore == 0 && 1 / ore < 0)) {
+            chars.put(Main.PRICE_FORMAT.format(ore));
+            return;
+        }
+        double scaled = ore * 100;
+        double fraction = scaled - Math.floor(scaled);
+        if (Math.abs(fraction - 0.5) < TIE_MARGIN) {
+            chars.put(Main.PRICE_FORMAT.format(ore));
+            return;
+        }
+        int hundredths = (int) Math.round(scaled);
+        int whole = hundredths / 100;
+        int decimals = hundredths % 100;
+        if (whole >= 100) {
+            chars.put((char) ('0' + whole / 100));
+            chars.put((char) ('0' + whole / 10 % 10));
+        } else if (whole >= 10) {
+            chars.put((char) ('0' + whole / 10));
+        }
+        chars.put((char) ('0' + whole % 10));
+        chars.put(decimalSeparator);
+        twoDigits(decimals);
+    }
+}
@@ -0,0 +1,197 @@
+package com.example;
+
+import com.example.api.ElpriserAPI;
+import com.example.api.PriceSeries;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ranked views over a list of prices that never touch the caller's list.
+ * The price column is copied into a double[] once, then we sort an int[] of indexes
+ * instead of the Elpris objects, so there is no boxing to Double.
+ * Equal prices always keep their original order (earliest first), same as a stable sort.
+ */
+public class RankedPrices {
+
+    private final PriceSeries series;
+    private final double[] prices;
+    //Built lazily the first time someone needs the full order
+    private int[] ascending;
+    private int[] rank;
+
+    public RankedPrices(List<ElpriserAPI.Elpris> priser) {
+        this(PriceSeries.of(priser));
+    }
+
+    public RankedPrices(PriceSeries series) {
+        this(series, series.sekColumn());
+    }
+
+    /**
+     * Ranks the series by other prices than SEK, for example {@code Currency.prices(series)}.
+     * The array must have one price per row and is not copied.
+     */
+    public RankedPrices(PriceSeries series, double[] prices) {
+        if (prices.length != series.size()) {
+            throw new IllegalArgumentException("one price per row is needed");
+        }
+        this.series = series;
+        this.prices = prices;
+    }
+
+    public int size() {
+        return prices.length;
+    }
+
+    /**
+     * All prices from most to least expensive, equal prices in original order.
+     */
+    public List<ElpriserAPI.Elpris> descending() {
+        return toElpriser(sortedIndexes(true));
+    }
+
+    /**
+     * All prices from cheapest to most expensive, equal prices in original order.
+     */
+    public List<ElpriserAPI.Elpris> ascending() {
+        return toElpriser(ascendingOrder());
+    }
+
+    /**
+     * The k cheapest prices, cheapest first. Uses a bounded heap, so it's O(n log k).
+     */
+    public List<ElpriserAPI.Elpris> cheapest(int k) {
+        return toElpriser(selectTop(k, false));
+    }
+
+    /**
+     * The k most expensive prices, most expensive first. Uses a bounded heap, so it's O(n log k).
+     */
+    public List<ElpriserAPI.Elpris> mostExpensive(int k) {
+        return toElpriser(selectTop(k, true));
+    }
+
+    /**
+     * Rank of the interval at the given index, 1 is the cheapest.
+     * The full order is sorted once, after that every lookup is O(1).
+     */
+    public int rank(int index) {
+        if (rank == null) {
+            int[] order = ascendingOrder();
+            int[] ranks = new int[order.length];
+            for (int position = 0; position < order.length; position++) {
+                ranks[order[position]] = position + 1;
+            }
+            rank = ranks;
+        }
+        return rank[index];
+    }
+
+    private int[] ascendingOrder() {
+        if (ascending == null) {
+            ascending = sortedIndexes(false);
+        }
+        return ascending;
+    }
+
+    private List<ElpriserAPI.Elpris> toElpriser(int[] indexes) {
+        List<ElpriserAPI.Elpris> result = new ArrayList<>(indexes.length);
+        for (int index : indexes) {
+            result.add(series.elpris(index));
+        }
+        return result;
+    }
+
+    //Returns true if index a should come before index b
+    private boolean before(int a, int b, boolean descending) {
+        int compare = Double.compare(prices[a], prices[b]);
+        if (compare == 0) {
+            return a < b;
+        }
+        return descending ? compare > 0 : compare < 0;
+    }
+
+    //Bottom-up merge sort over the indexes, it's stable and needs no Integer boxing
+    private int[] sortedIndexes(boolean descending) {
+        int n = prices.length;
+        int[] order = new int[n];
+        int[] buffer = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        for (int width = 1; width < n; width *= 2) {
+            for (int low = 0; low < n - width; low += 2 * width) {
+                int mid = low + width;
+                int high = Math.min(low + 2 * width, n);
+                int left = low;
+                int right = mid;
+                int out = low;
+                while (left < mid && right < high) {
+                    buffer[out++] = before(order[right], order[left], descending) ? order[right++] : order[left++];
+                }
+                while (left < mid) buffer[out++] = order[left++];
+                while (right < high) buffer[out++] = order[right++];
+                System.arraycopy(buffer, low, order, low, high - low);
+            }
+        }
+        return order;
+    }
+
+    //Keeps the k best indexes in a heap where the root is the worst of them,
+    //so each new price only needs to beat the root to get in
+    private int[] selectTop(int k, boolean descending) {
+        int n = prices.length;
+        k = Math.max(0, Math.min(k, n));
+        int[] heap = new int[k];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            if (size < k) {
+                heap[size] = i;
+                siftUp(heap, size++, descending);
+            } else if (k > 0 && before(i, heap[0], descending)) {
+                heap[0] = i;
+                siftDown(heap, size, descending);
+            }
+        }
+        //Pop the worst one each time and fill the result from the back
+        int[] result = new int[size];
+        for (int out = size - 1; out >= 0; out--) {
+            result[out] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(heap, size, descending);
+        }
+        return result;
+    }
+
+    private void siftUp(int[] heap, int position, boolean descending) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (!before(heap[parent], heap[position], descending)) break;
+            swap(heap, parent, position);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size, boolean descending) {
+        int position = 0;
+        while (true) {
+            int left = position * 2 + 1;
+            if (left >= size) break;
+            int worst = left;
+            int right = left + 1;
+            if (right < size && before(heap[left], heap[right], descending)) {
+                worst = right;
+            }
+            if (!before(heap[position], heap[worst], descending)) break;
+            swap(heap, position, worst);
+            position = worst;
+        }
+    }
+
+    private static void swap(int[] array, int a, int b) {
+        int temp = array[a];
+        array[a] = array[b];
+        array[b] = temp;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example;
+
+import com.example.api.ElpriserAPI;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Interactive mode. Every line is a set of the same flags as on the command line, for
+ * example "--zone SE3 --date 2025-09-04 --sorted", and runs against one ElpriserAPI, so
+ * the caches stay warm between commands. After a command the days around its date are
+ * fetched in the background, so stepping a day back or forward is usually a cache hit.
+ * Every command ends with how long it took. While the session is open, today's and
+ * yesterday's prices are checked against the source now and then, so a correction shows up
+ * without restarting.
+ */
+public class Repl {
+
+    public static final String PROMPT = "elpriser> ";
+    //Days around the asked date that we fetch in the background (tomorrow is already fetched by Main)
+    private static final int[] PREFETCH_DAYS = {-1, 2, -2};
+    //When we have remembered this many days we forget them all, a long session would otherwise keep every day
+    private static final int MAX_PREFETCHED = 256;
+    //A day that had no prices yet (usually tomorrow and the day after) is not asked for again until this has passed
+    private static final Duration EMPTY_RETRY = Duration.ofMinutes(10);
+    //How often recent days are checked for corrections, and how many days back
+    private static final Duration REVALIDATE_EVERY = Duration.ofMinutes(15);
+    private static final int REVALIDATE_DAYS_BACK = 1;
+
+    private final ElpriserAPI elpriserAPI;
+    private final ExecutorService prefetcher = Executors.newVirtualThreadPerTaskExecutor();
+    //Days fetched in the background, with the time (millis) when they may be fetched again.
+    //Days with prices and days being fetched right now are never fetched again, empty days after EMPTY_RETRY
+    private final Map<String, Long> prefetched = new ConcurrentHashMap<>();
+
+    public Repl(ElpriserAPI elpriserAPI) {
+        this.elpriserAPI = elpriserAPI;
+    }
+
+    /**
+     * Reads commands until "exit", "quit" or the end of the input.
+     */
+    public void run(BufferedReader in) {
+        System.out.println("Skriv samma flaggor som på kommandoraden, t.ex. --zone SE3 --sorted. Avsluta med exit.");
+        elpriserAPI.startaOmvalidering(REVALIDATE_EVERY, REVALIDATE_DAYS_BACK);
+        try {
+            while (true) {
+                System.out.print(PROMPT);
+                System.out.flush();
+                String line = in.readLine();
+                if (line == null) break;
+                line = line.trim();
+                if (line.equals("exit") || line.equals("quit")) break;
+                if (line.isEmpty()) continue;
+                runCommand(line.split("\\s+"));
+            }
+        } catch (IOException e) {
+            System.out.println("Kunde inte läsa kommandot: " + e.getMessage());
+        } finally {
+            //Don't wait for fetches nobody is going to look at
+            prefetcher.shutdownNow();
+            elpriserAPI.stoppaOmvalidering();
+        }
+    }
+
+    //Runs one line of flags and prints how long it took
+    private void runCommand(String[] args) {
+        long start = System.nanoTime();
+        Options options = null;
+        try {
+            options = Options.parse(args);
+            if (options.repl()) {
+                System.out.println("Redan i interaktivt läge.");
+            } else {
+                Main.run(options, elpriserAPI);
+            }
+        } catch (RuntimeException e) {
+            //A bad command (like --zone without a value) must not end the session
+            System.out.println("Fel: " + e.getMessage());
+        }
+        long micros = (System.nanoTime() - start) / 1000;
+        //The charging output doesn't end with a new line
+        if (options != null && options.chargingTime() != 0) System.out.println();
+        System.out.printf("(%d,%03d ms)\n", micros / 1000, micros % 1000);
+        if (options != null && !options.zone().isEmpty() && options.importPath() == null) {
+            prefetch(options.date(), ElpriserAPI.Prisklass.valueOf(options.zone()));
+        }
+    }
+
+    private void prefetch(LocalDate date, ElpriserAPI.Prisklass prisklass) {
+        if (prefetched.size() > MAX_PREFETCHED) {
+            prefetched.clear();
+        }
+        long now = System.currentTimeMillis();
+        for (int offset : PREFETCH_DAYS) {
+            LocalDate day = date.plusDays(offset);
+            String key = day + "_" + prisklass;
+            Long retryAt = prefetched.get(key);
+            if (retryAt != null && retryAt > now) continue;
+            //Only the thread that claims the key starts the fetch
+            boolean claimed = retryAt == null
+                    ? prefetched.putIfAbsent(key, Long.MAX_VALUE) == null
+                    : prefetched.replace(key, retryAt, Long.MAX_VALUE);
+            if (!claimed) continue;
+            prefetcher.submit(() -> {
+                boolean found = false;
+                try {
+                    found = !elpriserAPI.getPriser(day, prisklass).isEmpty();
+                } finally {
+                    if (!found) {
+                        prefetched.put(key, System.currentTimeMillis() + EMPTY_RETRY.toMillis());
+                    }
+                }
+            });
+        }
+    }
+}
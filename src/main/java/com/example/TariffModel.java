@@ -0,0 +1,43 @@
+package com.example;
+
+import com.example.api.PriceSeries;
+
+/**
+ * Turns a spot price into what a kWh actually costs at that time, e.g. by adding
+ * network fees, energy tax and VAT. Used by {@link ChargingOptimizer}.
+ */
+@FunctionalInterface
+public interface TariffModel {
+
+    /**
+     * Only the spot price, no fees or taxes. This is what Main has always used.
+     */
+    TariffModel SPOT_ONLY = (serie, index) -> serie.sekPerKWh(index);
+
+    /**
+     * Effective price in SEK/kWh for the interval at the given index.
+     */
+    double effectivePrice(PriceSeries serie, int index);
+
+    /**
+     * A time-of-use tariff: a network fee that depends on the local hour, energy tax on
+     * every kWh and VAT on the total. All amounts are in SEK/kWh, vatRate is e.g. 0.25.
+     */
+    record TimeOfUse(double peakNetworkFee, double offPeakNetworkFee, int peakStartHour, int peakEndHour,
+                     double energyTax, double vatRate) implements TariffModel {
+
+        public TimeOfUse {
+            if (peakStartHour < 0 || peakEndHour > 24 || peakStartHour > peakEndHour || vatRate < 0) {
+                throw new IllegalArgumentException("invalid tariff");
+            }
+        }
+
+        @Override
+        public double effectivePrice(PriceSeries serie, int index) {
+            long local = serie.startEpochSecond(index) + serie.startOffsetSeconds(index);
+            int hour = (int) (Math.floorMod(local, 86400L) / 3600);
+            double networkFee = hour >= peakStartHour && hour < peakEndHour ? peakNetworkFee : offPeakNetworkFee;
+            return (serie.sekPerKWh(index) + networkFee + energyTax) * (1 + vatRate);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.api;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Fyller disk-cachen och sammanfattningsindexet från ett arkiv med sparade svar från
+ * elprisetjustnu.se, så att en ny installation slipper tusentals nätverksanrop. Arkivet är
+ * en katalog eller en tar-fil (även .tar.gz/.tgz) där filerna heter som i URL:en, dvs.
+ * {@code yyyy/MM-dd_SEx.json}. Andra filer hoppas över utan att läsas. En post i tar-filen
+ * med trasig header räknas som misslyckad, och importen fortsätter från nästa giltiga header.
+ * <p>
+ * Filerna tolkas och sparas parallellt. Katalogen eller tar-filen gås igenom i ordning av
+ * en tråd medan filerna tolkas i poolen. För båda sorterna är antalet filer
+ * som väntar på en tråd begränsat, så att minnet inte växer med arkivets storlek.
+ */
+public final class ArchiveImporter {
+
+    private static final Pattern FILNAMN = Pattern.compile("(?:^|.*/)(\\d{4})/(\\d{2})-(\\d{2})_(SE[1-4])\\.json$");
+    private static final int TAR_BLOCK = 512;
+
+    private final ElpriserAPI api;
+    private final int trådar;
+
+    /**
+     * Resultatet av en import.
+     *
+     * @param dagar Antal dagar som importerades.
+     * @param intervall Antal prisintervall totalt.
+     * @param hoppadeÖver Filer som inte heter som en dag, eller som saknade priser.
+     * @param misslyckade Filer som inte gick att tolka.
+     * @param millis Hur lång tid importen tog.
+     */
+    public record Result(int dagar, long intervall, int hoppadeÖver, int misslyckade, long millis) {}
+
+    /**
+     * En importör med en tråd per processorkärna.
+     */
+    public ArchiveImporter(ElpriserAPI api) {
+        this(api, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ArchiveImporter(ElpriserAPI api, int trådar) {
+        if (trådar <= 0) {
+            throw new IllegalArgumentException("Antalet trådar måste vara positivt");
+        }
+        this.api = api;
+        this.trådar = trådar;
+    }
+
+    /**
+     * Importerar alla dagar i en katalog eller tar-fil.
+     *
+     * @throws IOException Om arkivet inte går att läsa.
+     */
+    public Result importera(Path arkiv) throws IOException {
+        long start = System.nanoTime();
+        Counters counters = new Counters();
+        ExecutorService pool = Executors.newFixedThreadPool(trådar);
+        try {
+            List<Future<?>> jobb = Files.isDirectory(arkiv)
+                    ? importeraKatalog(arkiv, pool, counters)
+                    : importeraTar(arkiv, pool, counters);
+            for (Future<?> f : jobb) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Importen avbröts", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException fel) {
+                throw fel; // T.ex. att API:et saknar cachekatalog
+            }
+            throw new IOException("Importen misslyckades", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Result(counters.dagar.get(), counters.intervall.get(), counters.hoppadeÖver.get(),
+                counters.misslyckade.get(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private List<Future<?>> importeraKatalog(Path katalog, ExecutorService pool, Counters counters)
+            throws IOException, InterruptedException, ExecutionException {
+        List<Future<?>> jobb = new ArrayList<>();
+        // Samma gräns som för tar-filer: högst några filer per tråd får vänta i kön
+        Semaphore köplatser = new Semaphore(trådar * 4);
+        try (Stream<Path> filer = Files.walk(katalog)) {
+            for (Path fil : (Iterable<Path>) filer.filter(Files::isRegularFile)::iterator) {
+                String namn = katalog.relativize(fil).toString().replace('\\', '/');
+                // Namnet avgör om filen ska läsas alls
+                if (!FILNAMN.matcher(namn).matches()) {
+                    counters.hoppadeÖver.incrementAndGet();
+                    continue;
+                }
+                köplatser.acquire();
+                rensa(jobb);
+                jobb.add(pool.submit(() -> {
+                    try {
+                        importeraFil(namn, Files.readString(fil, StandardCharsets.UTF_8), counters);
+                    } catch (IOException e) {
+                        System.err.println("Kunde inte läsa " + fil + ": " + e.getMessage());
+                        counters.misslyckade.incrementAndGet();
+                    } finally {
+                        köplatser.release();
+                    }
+                }));
+            }
+        }
+        return jobb;
+    }
+
+    private List<Future<?>> importeraTar(Path fil, ExecutorService pool, Counters counters)
+            throws IOException, InterruptedException, ExecutionException {
+        List<Future<?>> jobb = new ArrayList<>();
+        // Högst några filer per tråd får vänta i kön
+        Semaphore köplatser = new Semaphore(trådar * 4);
+        String filnamn = fil.getFileName().toString();
+        try (InputStream råström = new BufferedInputStream(Files.newInputStream(fil));
+             InputStream in = filnamn.endsWith(".gz") || filnamn.endsWith(".tgz") ? new GZIPInputStream(råström) : råström) {
+            byte[] header = new byte[TAR_BLOCK];
+            String långtNamn = null;
+            while (in.readNBytes(header, 0, TAR_BLOCK) == TAR_BLOCK && !ärTomtBlock(header)) {
+                if (!ärGiltigHeader(header)) {
+                    // Storleken i en trasig header går inte att lita på, så posten räknas som
+                    // misslyckad och nästa giltiga header letas upp block för block
+                    counters.misslyckade.incrementAndGet();
+                    långtNamn = null;
+                    if (!synka(in, header)) {
+                        System.err.println("Hittade ingen giltig tar-header efter en trasig post i " + fil + ", importen avslutas");
+                        break;
+                    }
+                }
+                long storlek = oktal(header, 124, 12);
+                char typ = (char) header[156];
+                if (typ == 'L') {
+                    // GNU-tar lägger långa filnamn i en egen post före filen
+                    långtNamn = new String(läs(in, storlek), StandardCharsets.UTF_8).trim();
+                    continue;
+                }
+                String namn = långtNamn != null ? långtNamn : namn(header);
+                långtNamn = null;
+                if (typ != '0' && typ != '\0') {
+                    hoppa(in, storlek);
+                    continue;
+                }
+                if (!FILNAMN.matcher(namn).matches()) {
+                    counters.hoppadeÖver.incrementAndGet();
+                    hoppa(in, storlek);
+                    continue;
+                }
+                byte[] innehåll = läs(in, storlek);
+                köplatser.acquire();
+                rensa(jobb);
+                jobb.add(pool.submit(() -> {
+                    try {
+                        importeraFil(namn, new String(innehåll, StandardCharsets.UTF_8), counters);
+                    } finally {
+                        köplatser.release();
+                    }
+                }));
+            }
+        }
+        return jobb;
+    }
+
+    // Tar bort avslutade jobb ur listan, så att den inte växer med arkivet. Ett fel i ett jobb kastas vidare
+    private static void rensa(List<Future<?>> jobb) throws InterruptedException, ExecutionException {
+        Iterator<Future<?>> it = jobb.iterator();
+        while (it.hasNext()) {
+            Future<?> f = it.next();
+            if (f.isDone()) {
+                f.get();
+                it.remove();
+            }
+        }
+    }
+
+    private void importeraFil(String namn, String json, Counters counters) {
+        Matcher matcher = FILNAMN.matcher(namn);
+        if (!matcher.matches()) {
+            counters.hoppadeÖver.incrementAndGet();
+            return;
+        }
+        try {
+            LocalDate datum = LocalDate.of(Integer.parseInt(matcher.group(1)),
+                    Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3)));
+            int antal = api.importera(datum, ElpriserAPI.Prisklass.valueOf(matcher.group(4)), json);
+            if (antal == 0) {
+                counters.hoppadeÖver.incrementAndGet();
+                return;
+            }
+            counters.dagar.incrementAndGet();
+            counters.intervall.addAndGet(antal);
+        } catch (DateTimeException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            System.err.println("Kunde inte tolka " + namn + ": " + e.getMessage());
+            counters.misslyckade.incrementAndGet();
+        }
+    }
+
+    // Namnet i en ustar-header: prefix (om det finns) + "/" + namn
+    private static String namn(byte[] header) {
+        String namn = sträng(header, 0, 100);
+        String prefix = sträng(header, 345, 155);
+        return prefix.isEmpty() ? namn : prefix + "/" + namn;
+    }
+
+    private static String sträng(byte[] header, int från, int längd) {
+        int slut = från;
+        while (slut < från + längd && header[slut] != 0) {
+            slut++;
+        }
+        return new String(header, från, slut - från, StandardCharsets.UTF_8);
+    }
+
+    private static long oktal(byte[] header, int från, int längd) {
+        long värde = 0;
+        for (int i = från; i < från + längd; i++) {
+            byte b = header[i];
+            if (b >= '0' && b <= '7') {
+                värde = värde * 8 + (b - '0');
+            } else if (b != ' ' && b != 0) {
+                throw new IllegalArgumentException("Ogiltig tar-header");
+            }
+        }
+        return värde;
+    }
+
+    // Sant om kontrollsumman stämmer och storleken är ett oktalt tal
+    private static boolean ärGiltigHeader(byte[] header) {
+        long kontrollsumma;
+        try {
+            oktal(header, 124, 12);
+            kontrollsumma = oktal(header, 148, 8);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        // Summan räknas med kontrollsummans eget fält som blanksteg
+        long summa = 8 * ' ';
+        for (int i = 0; i < TAR_BLOCK; i++) {
+            if (i < 148 || i >= 156) {
+                summa += header[i] & 0xFF;
+            }
+        }
+        return summa == kontrollsumma;
+    }
+
+    // Läser block tills ett är en giltig header. Falskt om arkivet tar slut (eller slutblocket kommer) först
+    private static boolean synka(InputStream in, byte[] header) throws IOException {
+        while (in.readNBytes(header, 0, TAR_BLOCK) == TAR_BLOCK && !ärTomtBlock(header)) {
+            if (ärGiltigHeader(header)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean ärTomtBlock(byte[] header) {
+        for (byte b : header) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Läser filens data och hoppar över utfyllnaden till nästa hela block
+    private static byte[] läs(InputStream in, long storlek) throws IOException {
+        if (storlek > Integer.MAX_VALUE - TAR_BLOCK) {
+            throw new IOException("För stor fil i arkivet");
+        }
+        byte[] data = in.readNBytes((int) storlek);
+        if (data.length != storlek) {
+            throw new IOException("Arkivet tar slut mitt i en fil");
+        }
+        in.skipNBytes(utfyllnad(storlek));
+        return data;
+    }
+
+    private static void hoppa(InputStream in, long storlek) throws IOException {
+        in.skipNBytes(storlek + utfyllnad(storlek));
+    }
+
+    private static long utfyllnad(long storlek) {
+        return (TAR_BLOCK - storlek % TAR_BLOCK) % TAR_BLOCK;
+    }
+
+    // Räknare som delas av alla trådar under en import
+    private static final class Counters {
+        final AtomicInteger dagar = new AtomicInteger();
+        final AtomicLong intervall = new AtomicLong();
+        final AtomicInteger hoppadeÖver = new AtomicInteger();
+        final AtomicInteger misslyckade = new AtomicInteger();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.api;
+
+/**
+ * Valutan som priser visas och räknas i. Priserna från elprisetjustnu.se finns både i SEK
+ * och EUR, så SEK och EUR läses direkt ur kolumnerna. Andra valutor (t.ex. DKK) räknas om
+ * från EUR med en fast kurs, utan att något behöver hämtas igen.
+ *
+ * @param code Valutakoden, t.ex. "SEK".
+ * @param subunit Namnet på hundradelen som priser skrivs ut i, t.ex. "öre".
+ * @param eurBased Om priset räknas från EUR-kolumnen (annars SEK-kolumnen).
+ * @param rate Kursen som kolumnen multipliceras med.
+ */
+public record Currency(String code, String subunit, boolean eurBased, double rate) {
+
+    public static final Currency SEK = new Currency("SEK", "öre", false, 1.0);
+    public static final Currency EUR = new Currency("EUR", "cent", true, 1.0);
+
+    public Currency {
+        if (!(rate > 0) || Double.isInfinite(rate)) {
+            throw new IllegalArgumentException("Ogiltig kurs: " + rate);
+        }
+    }
+
+    /**
+     * En valuta med fast kurs mot EUR, t.ex. {@code perEur("DKK", "øre", 7.46)}.
+     */
+    public static Currency perEur(String code, String subunit, double rate) {
+        return new Currency(code, subunit, true, rate);
+    }
+
+    /**
+     * Priset i kr/kWh (eller motsvarande) för en rad i serien.
+     */
+    public double price(PriceSeries serie, int index) {
+        return (eurBased ? serie.eurPerKWh(index) : serie.sekPerKWh(index)) * rate;
+    }
+
+    public double price(ElpriserAPI.Elpris pris) {
+        return (eurBased ? pris.eurPerKWh() : pris.sekPerKWh()) * rate;
+    }
+
+    /**
+     * Alla priser i serien omräknade, en tät loop över kolumnen som JIT-kompilatorn kan
+     * vektorisera.
+     */
+    public double[] prices(PriceSeries serie) {
+        double[] kolumn = eurBased ? serie.eurValues() : serie.sekValues();
+        double[] result = new double[kolumn.length];
+        for (int i = 0; i < kolumn.length; i++) {
+            result[i] = kolumn[i] * rate;
+        }
+        return result;
+    }
+}
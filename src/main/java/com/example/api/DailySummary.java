@@ -0,0 +1,120 @@
+package com.example.api;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * En kompakt sammanfattning av en dags priser för ett elprisområde. Sammanfattningen
+ * räknas ut en gång när dagen hämtas första gången och sparas i {@link SummaryIndex},
+ * så att frågor över långa perioder kan besvaras utan att läsa in alla intervall.
+ * Tider anges som epoch-sekunder och priser i SEK/kWh.
+ */
+public record DailySummary(
+        LocalDate datum,
+        ElpriserAPI.Prisklass prisklass,
+        int antalIntervall,
+        double min,
+        double max,
+        double medel,
+        long billigasteTimmeStart,
+        long dyrasteTimmeStart,
+        Window billigaste2h,
+        Window billigaste4h,
+        Window billigaste8h
+) {
+
+    /**
+     * Det billigaste sammanhängande fönstret av en viss längd. Om dagen är för kort
+     * för fönstret är {@code startEpochSecond} -1 och {@code medel} NaN.
+     */
+    public record Window(long startEpochSecond, double medel) {
+        static final Window SAKNAS = new Window(-1, Double.NaN);
+
+        public boolean finns() {
+            return startEpochSecond >= 0;
+        }
+    }
+
+    /**
+     * Räknar ut en sammanfattning från en dags priser.
+     */
+    public static DailySummary of(LocalDate datum, ElpriserAPI.Prisklass prisklass, List<ElpriserAPI.Elpris> priser) {
+        return of(datum, prisklass, PriceSeries.of(priser));
+    }
+
+    /**
+     * Räknar ut en sammanfattning från en dags priser i kolumnform.
+     */
+    public static DailySummary of(LocalDate datum, ElpriserAPI.Prisklass prisklass, PriceSeries serie) {
+        int n = serie.size();
+        if (n == 0) {
+            throw new IllegalArgumentException("Kan inte sammanfatta en dag utan priser: " + datum);
+        }
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            double pris = serie.sekPerKWh(i);
+            sum += pris;
+            if (pris < min) min = pris;
+            if (pris > max) max = pris;
+        }
+
+        // Timmedelvärden: intervall med samma lokala timme slås ihop
+        long billigasteTimme = -1;
+        long dyrasteTimme = -1;
+        double billigasteSnitt = Double.MAX_VALUE;
+        double dyrasteSnitt = -Double.MAX_VALUE;
+        int i = 0;
+        while (i < n) {
+            long timme = localHour(serie, i);
+            long timmeStart = serie.startEpochSecond(i);
+            double timmeSumma = 0;
+            int antal = 0;
+            while (i < n && localHour(serie, i) == timme) {
+                timmeSumma += serie.sekPerKWh(i);
+                antal++;
+                i++;
+            }
+            double snitt = timmeSumma / antal;
+            if (snitt < billigasteSnitt) {
+                billigasteSnitt = snitt;
+                billigasteTimme = timmeStart;
+            }
+            if (snitt > dyrasteSnitt) {
+                dyrasteSnitt = snitt;
+                dyrasteTimme = timmeStart;
+            }
+        }
+
+        return new DailySummary(datum, prisklass, n, min, max, sum / n, billigasteTimme, dyrasteTimme,
+                cheapestWindow(serie, 2), cheapestWindow(serie, 4), cheapestWindow(serie, 8));
+    }
+
+    // Glidande fönster över antalet intervall som motsvarar det givna antalet timmar
+    private static Window cheapestWindow(PriceSeries serie, int timmar) {
+        long intervallSekunder = Math.max(1, serie.durationSeconds(0));
+        int längd = (int) Math.max(1, timmar * 3600L / intervallSekunder);
+        if (serie.size() < längd) {
+            return Window.SAKNAS;
+        }
+        double summa = 0;
+        for (int i = 0; i < längd; i++) {
+            summa += serie.sekPerKWh(i);
+        }
+        double bästaSumma = summa;
+        int bästaStart = 0;
+        for (int i = längd; i < serie.size(); i++) {
+            summa += serie.sekPerKWh(i) - serie.sekPerKWh(i - längd);
+            if (summa < bästaSumma) {
+                bästaSumma = summa;
+                bästaStart = i - längd + 1;
+            }
+        }
+        return new Window(serie.startEpochSecond(bästaStart), bästaSumma / längd);
+    }
+
+    private static long localHour(PriceSeries serie, int index) {
+        return Math.floorDiv(serie.startEpochSecond(index) + serie.startOffsetSeconds(index), 3600L);
+    }
+}
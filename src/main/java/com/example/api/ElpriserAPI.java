@@ -1,10 +1,18 @@
 package com.example.api;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.DateTimeException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -12,21 +20,34 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
+import java.util.zip.CRC32C;
 
 /**
  * Ett enkelt API för att hämta elpriser från elprisetjustnu.se.
  * Klassen använder endast standardbibliotek från Java 21+ (HttpClient, Records, etc.).
+ * En dag söks i ordning i minnes-cachen, den delade cachen ({@link SharedMemoryCache}),
+ * disk-cachen och sist hos källan. De senaste dagarna kan omvalideras mot källan med jämna
+ * mellanrum, så att rättade priser ersätter de cachade (se {@link #startaOmvalidering}).
  */
 public final class ElpriserAPI {
 
-    // Baskonstanter för API-anrop
-    private static final String API_BASE_URL = "https://www.elprisetjustnu.se/api/v1/prices";
-    private static final DateTimeFormatter URL_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM-dd");
+    // Loggare för diagnostik (cacheträffar, nätverksanrop). Skriver inte till System.out,
+    // så att många trådar som delar en instans inte konkurrerar om konsolen.
+    private static final System.Logger LOGGER = System.getLogger(ElpriserAPI.class.getName());
 
-    // En återanvändbar HttpClient-instans
-    private final HttpClient httpClient;
+    // Källan för rådata, normalt elprisetjustnu.se via HTTP
+    private final PriceSource source;
     
     // Flagga för att styra cachlagring
     private final boolean cachingEnabled;
@@ -34,6 +55,42 @@ public final class ElpriserAPI {
     // Ett enkelt minnes-cache. Nyckeln är en kombination av datum och prisklass, t.ex. "2025-08-30_SE3"
     private final Map<String, List<Elpris>> inMemoryCache;
 
+    // Hämtningar som pågår just nu, så att flera trådar som vill ha samma dag delar på ett anrop
+    private final Map<String, CompletableFuture<List<Elpris>>> pågåendeHämtningar;
+
+    // Omräknade vyer av dagar i minnes-cachen, nyckeln är cachenyckeln plus upplösningen, t.ex. "2025-08-30_SE3_HOUR"
+    private final Map<String, List<Elpris>> omräknadeVyer;
+
+    // Katalog för filer som sparas mellan körningar, null om inget ska sparas
+    private final Path cacheDir;
+
+    // Cache i en minnesmappad fil som delas med andra processer på datorn, null om inget sparas till disk
+    private final SharedMemoryCache deladCache;
+
+    // Sammanfattning per dag och prisklass, räknas ut när en dag hämtas första gången
+    private final SummaryIndex summaryIndex;
+
+    // Lyssnare som får varje ny dag som läggs i cachen
+    private final List<PriceListener> listeners;
+
+    // Prognos för dagar som inte är publicerade, uppdateras av varje ny dag i cachen
+    private final PriceForecaster forecaster;
+
+    // Historiska fördelningar per timme, uppdateras av varje ny dag i cachen
+    private final PercentileRanker percentiler;
+
+    // Kontrollsumma och ETag för senast hämtade svar per dag, så att omvalideringen ser om något ändrats
+    private final Map<String, Version> versioner;
+
+    // Bara en omvalidering i taget, så att två rättningar av samma dag inte korsar varandra
+    private final Object omvalideringsLås = new Object();
+
+    // Schemat för omvalideringen, null när den inte är igång
+    private ScheduledExecutorService omvalidering;
+
+    // Vad vi vet om det senaste svaret för en dag
+    private record Version(long kontrollsumma, String etag) {}
+
     /**
      * En record som representerar ett enskilt elpris för en given tidsperiod.
      * Användningen av 'record' genererar automatiskt constructor, getters, equals, hashCode och toString.
@@ -54,14 +111,17 @@ public final class ElpriserAPI {
     }
 
     // --- Static fields for the test hook ---
+    // These are the only static state left in the class. They are kept static because tests
+    // drive Main.main, which creates its own instance. Both fields are safe to use from many
+    // threads; instances that need their own data should use a PriceSource instead.
     /**
      * This supplier is used ONLY for testing. If it's not null, the class will
      * use the String it provides instead of making a real HTTP call.
      */
-    private static Supplier<String> mockResponseSupplier = null;
+    private static volatile Supplier<String> mockResponseSupplier = null;
     
     // New: map mock responses per date, so tests can provide different JSON per day
-    private static java.util.Map<LocalDate, String> datedMockResponses = new java.util.HashMap<>();
+    private static final Map<LocalDate, String> datedMockResponses = new ConcurrentHashMap<>();
 
     /**
      * FOR TESTS ONLY: Sets a mock JSON response to be returned by the next API call.
@@ -92,6 +152,10 @@ public final class ElpriserAPI {
         mockResponseSupplier = null;
         datedMockResponses.clear();
     }
+
+    private static boolean isMockActive() {
+        return mockResponseSupplier != null || !datedMockResponses.isEmpty();
+    }
     // --- End of test fields ---
 
     /**
@@ -106,13 +170,42 @@ public final class ElpriserAPI {
      * @param enableCaching Sätt till true för att aktivera minnes-cachning, annars false.
      */
     public ElpriserAPI(boolean enableCaching) {
-        this.httpClient = HttpClient.newBuilder()
-                .followRedirects(HttpClient.Redirect.NORMAL)
-                .build();
+        this(enableCaching, defaultCacheDir());
+    }
+
+    /**
+     * Konstruktor som även anger var cachade filer (t.ex. sammanfattningsindexet) sparas.
+     * @param enableCaching Sätt till true för att aktivera cachning, annars false.
+     * @param cacheDir Katalogen för cachade filer, eller null om inget ska sparas till disk.
+     */
+    public ElpriserAPI(boolean enableCaching, Path cacheDir) {
+        this(enableCaching, cacheDir, PriceSource.http());
+    }
+
+    /**
+     * Konstruktor som även anger varifrån rådata hämtas. All status hör till instansen,
+     * så flera instanser med olika källor kan användas samtidigt.
+     * @param enableCaching Sätt till true för att aktivera cachning, annars false.
+     * @param cacheDir Katalogen för cachade filer, eller null om inget ska sparas till disk.
+     * @param source Källan för rådata.
+     */
+    public ElpriserAPI(boolean enableCaching, Path cacheDir, PriceSource source) {
+        this.source = source;
         this.cachingEnabled = enableCaching;
         // ConcurrentHashMap är trådsäker om klassen skulle användas i flera trådar
         this.inMemoryCache = new ConcurrentHashMap<>();
-        System.out.println("ElpriserAPI initialiserat. Cachning: " + (enableCaching ? "På" : "Av"));
+        this.pågåendeHämtningar = new ConcurrentHashMap<>();
+        this.omräknadeVyer = new ConcurrentHashMap<>();
+        this.cacheDir = cacheDir;
+        this.deladCache = cacheDir == null ? null : new SharedMemoryCache(cacheDir.resolve("delad.cache"));
+        this.summaryIndex = new SummaryIndex(cacheDir == null ? null : cacheDir.resolve("sammanfattningar.bin"));
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.forecaster = new PriceForecaster();
+        this.listeners.add(forecaster);
+        this.percentiler = new PercentileRanker();
+        this.listeners.add(percentiler);
+        this.versioner = new ConcurrentHashMap<>();
+        LOGGER.log(System.Logger.Level.DEBUG, "ElpriserAPI initialiserat. Cachning: " + (enableCaching ? "På" : "Av"));
     }
 
     /**
@@ -134,85 +227,496 @@ public final class ElpriserAPI {
     }
 
     /**
-     * Hämtar elpriser för ett specifikt datum och prisklass.
+     * Hämtar elpriser för ett specifikt datum och prisklass. Metoden är trådsäker: om flera
+     * trådar samtidigt ber om en dag som inte finns i cachen görs bara en hämtning, och
+     * övriga trådar väntar på och delar dess resultat. Listor från cachen går inte att ändra.
      *
      * @param datum Ett {@link LocalDate}-objekt som representerar dagen att hämta priser för.
      * @param prisklass Elprisområdet (SE1, SE2, SE3 eller SE4).
      * @return En lista av {@link Elpris}-objekt, eller en tom lista om data inte kunde hämtas.
      */
     public List<Elpris> getPriser(LocalDate datum, Prisklass prisklass) {
+        if (!cachingEnabled) {
+            return load(datum, prisklass, getCacheKey(datum, prisklass), false);
+        }
         String cacheKey = getCacheKey(datum, prisklass);
 
-        // Steg 1: Kolla minnes-cachen
-        if (cachingEnabled && inMemoryCache.containsKey(cacheKey)) {
-            System.out.println("Hämtar från minnes-cache för " + cacheKey);
-            return inMemoryCache.get(cacheKey);
+        // Steg 1: Kolla minnes-cachen (en enda läsning, ingen containsKey följt av get)
+        List<Elpris> cached = inMemoryCache.get(cacheKey);
+        if (cached != null) {
+            LOGGER.log(System.Logger.Level.DEBUG, "Hämtar från minnes-cache för " + cacheKey);
+            return cached;
         }
 
-        // Steg 2: Försök ladda från disk-cache (framtida implementation)
-        var priserFrånDisk = loadFromDiskCache(cacheKey);
-        if (cachingEnabled && priserFrånDisk != null && !priserFrånDisk.isEmpty()) {
-             System.out.println("Hämtar från disk-cache för " + cacheKey);
-             inMemoryCache.put(cacheKey, priserFrånDisk); // Lägg i minnes-cachen för snabbare åtkomst nästa gång
-             return priserFrånDisk;
+        // Steg 2: Bara en tråd per nyckel får hämta, övriga väntar på samma resultat
+        CompletableFuture<List<Elpris>> minHämtning = new CompletableFuture<>();
+        CompletableFuture<List<Elpris>> pågående = pågåendeHämtningar.putIfAbsent(cacheKey, minHämtning);
+        if (pågående != null) {
+            return pågående.join();
+        }
+        try {
+            // En annan tråd kan ha hunnit bli klar mellan steg 1 och 2
+            List<Elpris> priser = inMemoryCache.get(cacheKey);
+            if (priser == null) {
+                priser = load(datum, prisklass, cacheKey, true);
+            }
+            minHämtning.complete(priser);
+            return priser;
+        } catch (RuntimeException e) {
+            minHämtning.completeExceptionally(e);
+            throw e;
+        } finally {
+            pågåendeHämtningar.remove(cacheKey, minHämtning);
+        }
+    }
+
+    /**
+     * Hämtar elpriser för en dag omräknade till given upplösning, se {@link Resampler}.
+     * Omräkningen görs en gång per dag och upplösning och sparas bredvid minnes-cachen.
+     *
+     * @param resolution Önskad upplösning, t.ex. {@link Resolution#HOUR} för timpriser.
+     * @return En lista av {@link Elpris}-objekt, eller en tom lista om data inte kunde hämtas.
+     */
+    public List<Elpris> getPriser(LocalDate datum, Prisklass prisklass, Resolution resolution) {
+        List<Elpris> priser = getPriser(datum, prisklass);
+        if (priser.isEmpty()) {
+            return priser;
+        }
+        if (!cachingEnabled) {
+            return Resampler.resample(PriceSeries.of(priser), resolution).toList();
+        }
+        String vyNyckel = getCacheKey(datum, prisklass) + "_" + resolution.name();
+        return omräknadeVyer.computeIfAbsent(vyNyckel, k -> Resampler.resample(PriceSeries.of(priser), resolution).toList());
+    }
+
+    /**
+     * Som {@link #getPriser(LocalDate, Prisklass)}, men en dag som inte redan finns i
+     * minnes-cachen läggs inte heller dit (disk-cachen och sammanfattningsindexet används
+     * som vanligt). Används när många dagar läses i följd, så att minnet inte växer.
+     */
+    List<Elpris> getPriserUtanMinnesCache(LocalDate datum, Prisklass prisklass) {
+        String cacheKey = getCacheKey(datum, prisklass);
+        List<Elpris> cached = cachingEnabled ? inMemoryCache.get(cacheKey) : null;
+        return cached != null ? cached : load(datum, prisklass, cacheKey, false);
+    }
+
+    /**
+     * Som {@link #getPriserUtanMinnesCache(LocalDate, Prisklass)}, men ett fel vid hämtningen
+     * kastas i stället för att ge en tom lista. En tom lista betyder alltså att dagen saknar
+     * priser. Används av {@link PriceStreamPublisher}, som ska skilja på de två fallen.
+     */
+    List<Elpris> hämtaUtanMinnesCache(LocalDate datum, Prisklass prisklass) throws IOException, InterruptedException {
+        String cacheKey = getCacheKey(datum, prisklass);
+        List<Elpris> cached = cachingEnabled ? inMemoryCache.get(cacheKey) : null;
+        return cached != null ? cached : ladda(datum, prisklass, cacheKey, false);
+    }
+
+    /**
+     * Hämtar alla priser i perioden (inklusive båda datumen) som en enda kolumnbaserad serie,
+     * t.ex. för rapporter över flera år. Dagar som inte redan finns i minnes-cachen läggs inte
+     * dit, och dagar utan priser hoppas över.
+     */
+    public PriceSeries getSerie(LocalDate från, LocalDate till, Prisklass prisklass) {
+        List<PriceSeries> dagar = new ArrayList<>();
+        for (LocalDate datum = från; !datum.isAfter(till); datum = datum.plusDays(1)) {
+            List<Elpris> priser = getPriserUtanMinnesCache(datum, prisklass);
+            if (!priser.isEmpty()) {
+                dagar.add(PriceSeries.of(priser));
+            }
+        }
+        return PriceSeries.concat(dagar);
+    }
+
+    /**
+     * Växelkursen (SEK per EUR) för varje dag i perioden (inklusive båda datumen), som
+     * medelvärdet av dagens EXR-kolumn. Bara dagar som redan finns i någon cache (minnet,
+     * den delade cachen eller disk) och för något elprisområde används, inget hämtas från
+     * nätverket. Dagar som inte finns i cachen saknas i resultatet.
+     */
+    public NavigableMap<LocalDate, Double> getVäxelkurser(LocalDate från, LocalDate till) {
+        NavigableMap<LocalDate, Double> kurser = new TreeMap<>();
+        for (LocalDate datum = från; !datum.isAfter(till); datum = datum.plusDays(1)) {
+            for (Prisklass prisklass : Prisklass.values()) {
+                List<Elpris> priser = frånCache(getCacheKey(datum, prisklass));
+                if (priser != null && !priser.isEmpty()) {
+                    double[] exr = PriceSeries.of(priser).exrValues();
+                    double summa = 0;
+                    for (double kurs : exr) {
+                        summa += kurs;
+                    }
+                    kurser.put(datum, summa / exr.length);
+                    break; // Kursen är samma för alla elprisområden
+                }
+            }
+        }
+        return kurser;
+    }
+
+    // En dag från minnes-cachen, den delade cachen eller disk-cachen, null om den inte finns
+    private List<Elpris> frånCache(String cacheKey) {
+        if (!cachingEnabled) {
+            return null;
+        }
+        List<Elpris> priser = inMemoryCache.get(cacheKey);
+        if (priser != null || isMockActive()) {
+            return priser;
+        }
+        priser = loadFromSharedCache(cacheKey);
+        return priser != null ? priser : loadFromDiskCache(cacheKey);
+    }
+
+    /**
+     * Strömmar alla priser i perioden (inklusive båda datumen) som en reaktiv
+     * {@link Flow.Publisher} med mottrycksstyrning. Nästa dag hämtas först när mottagaren
+     * har begärt fler priser än som finns kvar från dagen innan, och bara en dag i taget
+     * hålls i minnet. Dagar utan priser hoppas över, men om en hämtning misslyckas avslutas
+     * strömmen med {@code onError}.
+     */
+    public Flow.Publisher<Elpris> streamPriser(LocalDate från, LocalDate till, Prisklass prisklass) {
+        return new PriceStreamPublisher(this, från, till, prisklass);
+    }
+
+    // Laddar en dag som inte finns i minnes-cachen, från disk, mock-data eller källan.
+    // Om iMinnet är false läggs dagen inte i minnes-cachen. Ett fel vid hämtningen ger en tom lista.
+    private List<Elpris> load(LocalDate datum, Prisklass prisklass, String cacheKey, boolean iMinnet) {
+        try {
+            return ladda(datum, prisklass, cacheKey, iMinnet);
+        } catch (IOException e) {
+            System.err.println("Ett fel inträffade vid hämtning av elpriser: " + e.getMessage());
+            return Collections.emptyList();
+        } catch (InterruptedException e) {
+            System.err.println("Hämtningen av elpriser avbröts för " + cacheKey);
+            Thread.currentThread().interrupt(); // Bra praxis vid InterruptedException
+            return Collections.emptyList();
+        }
+    }
+
+    // Som load, men fel vid hämtningen från källan kastas vidare
+    private List<Elpris> ladda(LocalDate datum, Prisklass prisklass, String cacheKey, boolean iMinnet)
+            throws IOException, InterruptedException {
+        // Steg 3a: Försök ladda från den delade cachen, någon annan process kan redan ha hämtat dagen
+        var priserFrånDelad = cachingEnabled && !isMockActive() ? loadFromSharedCache(cacheKey) : null;
+        if (priserFrånDelad != null && !priserFrånDelad.isEmpty()) {
+            LOGGER.log(System.Logger.Level.DEBUG, "Hämtar från delad cache för " + cacheKey);
+            return cache(datum, prisklass, cacheKey, priserFrånDelad, false, iMinnet);
+        }
+
+        // Steg 3b: Försök ladda från disk-cache
+        var priserFrånDisk = cachingEnabled && !isMockActive() ? loadFromDiskCache(cacheKey) : null;
+        if (priserFrånDisk != null && !priserFrånDisk.isEmpty()) {
+             LOGGER.log(System.Logger.Level.DEBUG, "Hämtar från disk-cache för " + cacheKey);
+             saveToSharedCache(cacheKey, PriceSeries.of(priserFrånDisk));
+             return cache(datum, prisklass, cacheKey, priserFrånDisk, false, iMinnet);
         }
 
         // Check for a mock response before making a network call ---
-        if (mockResponseSupplier != null || !datedMockResponses.isEmpty()) {
-            System.out.println("!!! ANVÄNDER MOCK-DATA FÖR TEST !!!");
-            String mockJson = datedMockResponses.getOrDefault(datum, mockResponseSupplier == null ? null : mockResponseSupplier.get());
+        if (isMockActive()) {
+            LOGGER.log(System.Logger.Level.DEBUG, "!!! ANVÄNDER MOCK-DATA FÖR TEST !!!");
+            String mockJson = mockSvar(datum);
             if (mockJson == null || mockJson.isBlank()) {
                 return Collections.emptyList();
             }
-            List<Elpris> priser = parseSimpleJson(mockJson);
+            List<Elpris> priser = cache(datum, prisklass, cacheKey, parseSimpleJson(mockJson), false, iMinnet);
             if (cachingEnabled && !priser.isEmpty()) {
-                inMemoryCache.put(cacheKey, priser);
+                versioner.put(cacheKey, new Version(kontrollsumma(mockJson), null));
             }
             return priser;
         }
         // --- End of mock check ---
 
-        // Steg 3: Hämta från nätverket om det inte finns i cachen
-        System.out.println("Hämtar från nätverket för " + cacheKey);
-        String url = buildUrl(datum, prisklass);
-        try {
-            HttpRequest request = HttpRequest.newBuilder().uri(URI.create(url)).GET().build();
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        // Steg 4: Hämta från källan (nätverket) om det inte finns i cachen
+        LOGGER.log(System.Logger.Level.DEBUG, "Hämtar från nätverket för " + cacheKey);
+        PriceSource.Response svar = source.fetch(datum, prisklass, null);
+        String body = svar.body();
+        if (body == null) {
+            LOGGER.log(System.Logger.Level.DEBUG, "Inga priser hittades för " + cacheKey + " (HTTP 404).");
+            return Collections.emptyList();
+        }
 
-            // Om sidan inte finns (t.ex. priser för morgondagen) returneras 404
-            if (response.statusCode() == 404) {
-                System.out.println("Inga priser hittades för " + cacheKey + " (HTTP 404).");
-                return Collections.emptyList();
+        List<Elpris> priser = cache(datum, prisklass, cacheKey, parseSimpleJson(body), true, iMinnet);
+        if (cachingEnabled && !priser.isEmpty()) {
+            PriceSeries serie = PriceSeries.of(priser);
+            saveToSharedCache(cacheKey, serie);
+            saveToDiskCache(cacheKey, serie); // Spara i binärt format, se PriceCodec
+            versioner.put(cacheKey, new Version(kontrollsumma(body), svar.etag()));
+        }
+        return priser;
+    }
+
+    // Steg 5: Spara en hämtad dag i minnes-cachen och sammanfattningsindexet om cachning är på
+    private List<Elpris> cache(LocalDate datum, Prisklass prisklass, String cacheKey, List<Elpris> priser,
+                               boolean persist, boolean iMinnet) {
+        if (!cachingEnabled || priser.isEmpty()) {
+            return priser;
+        }
+        List<Elpris> oföränderlig = Collections.unmodifiableList(priser);
+        PriceSeries serie = PriceSeries.of(oföränderlig);
+        indexera(datum, prisklass, serie, persist);
+        if (!iMinnet) {
+            return oföränderlig;
+        }
+        inMemoryCache.put(cacheKey, oföränderlig);
+        for (PriceListener listener : listeners) {
+            listener.onNewDay(datum, prisklass, serie);
+        }
+        return oföränderlig;
+    }
+
+    /**
+     * Lägger in en dag från en annan källa än nätverket, t.ex. ett arkiv med sparade
+     * JSON-svar (se {@link ArchiveImporter}). Dagen sparas i disk-cachen, i den delade
+     * cachen och i sammanfattningsindexet, där den ersätter en tidigare version, men inte i
+     * minnes-cachen. Metoden är trådsäker.
+     *
+     * @param json Svaret från elprisetjustnu.se för dagen.
+     * @return Antal prisintervall som importerades, 0 om JSON-texten inte innehöll några priser.
+     * @throws IllegalStateException Om cachning är avstängd eller om det inte finns någon
+     *                               cachekatalog, eftersom dagen då inte skulle sparas någonstans.
+     */
+    public int importera(LocalDate datum, Prisklass prisklass, String json) {
+        if (!cachingEnabled) {
+            throw new IllegalStateException("Import kräver att cachning är på");
+        }
+        if (cacheDir == null) {
+            throw new IllegalStateException("Import kräver en cachekatalog");
+        }
+        List<Elpris> priser = parseSimpleJson(json);
+        if (priser.isEmpty()) {
+            return 0;
+        }
+        PriceSeries serie = PriceSeries.of(priser);
+        String cacheKey = getCacheKey(datum, prisklass);
+        summaryIndex.put(DailySummary.of(datum, prisklass, serie), true);
+        saveToDiskCache(cacheKey, serie);
+        // Den delade cachen läses före disk-cachen, så en äldre version där måste ersättas
+        saveToSharedCache(cacheKey, serie);
+        return priser.size();
+    }
+
+    /**
+     * Hämtar om en dag som finns i minnes-cachen och ersätter den om källan har rättat
+     * priserna. Har källan gett en ETag skickas den med, så en oförändrad dag kostar bara ett
+     * tomt svar. Annars jämförs en kontrollsumma av det nya svaret med det förra, och svaret
+     * tolkas bara om summan skiljer. En ändrad dag ersätts i alla cacher och i
+     * sammanfattningsindexet, omräknade vyer av dagen tas bort och lyssnarna får
+     * {@link PriceListener#onChanged}. Metoden är trådsäker.
+     *
+     * @return Sant om priserna hade ändrats.
+     */
+    public boolean omvalidera(LocalDate datum, Prisklass prisklass) {
+        String cacheKey = getCacheKey(datum, prisklass);
+        synchronized (omvalideringsLås) {
+            List<Elpris> gamla = cachingEnabled ? inMemoryCache.get(cacheKey) : null;
+            if (gamla == null) {
+                return false;
             }
-            if (response.statusCode() != 200) {
-                 System.err.println("Misslyckades med att hämta priser. Statuskod: " + response.statusCode());
-                 return Collections.emptyList();
+            Version version = versioner.get(cacheKey);
+            PriceSource.Response svar;
+            try {
+                svar = isMockActive()
+                        ? new PriceSource.Response(mockSvar(datum), null, false)
+                        : source.fetch(datum, prisklass, version == null ? null : version.etag());
+            } catch (IOException e) {
+                System.err.println("Kunde inte omvalidera " + cacheKey + ": " + e.getMessage());
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            // Oförändrad (304), eller borta hos källan, då behåller vi det vi har
+            if (svar.notModified() || svar.body() == null || svar.body().isBlank()) {
+                return false;
+            }
+            long kontrollsumma = kontrollsumma(svar.body());
+            versioner.put(cacheKey, new Version(kontrollsumma, svar.etag()));
+            if (version != null && version.kontrollsumma() == kontrollsumma) {
+                LOGGER.log(System.Logger.Level.DEBUG, "Oförändrat svar för " + cacheKey);
+                return false;
+            }
+            // Dagar från disk har ingen kontrollsumma, och ett nytt svar kan ha samma priser i annan form
+            List<Elpris> nya = parseSimpleJson(svar.body());
+            if (nya.isEmpty() || nya.equals(gamla)) {
+                return false;
             }
+            LOGGER.log(System.Logger.Level.DEBUG, "Källan har rättat priserna för " + cacheKey);
+            ersätt(datum, prisklass, cacheKey, gamla, nya, !isMockActive());
+            return true;
+        }
+    }
 
-            List<Elpris> priser = parseSimpleJson(response.body());
+    /**
+     * Omvaliderar (se {@link #omvalidera(LocalDate, Prisklass)}) alla dagar i minnes-cachen
+     * från {@code dagarBakåt} dagar före idag till och med i morgon.
+     *
+     * @return Antal dagar som hade ändrats.
+     */
+    public int omvalideraSenaste(int dagarBakåt) {
+        LocalDate idag = LocalDate.now(TimestampCodec.STOCKHOLM);
+        LocalDate från = idag.minusDays(dagarBakåt);
+        LocalDate till = idag.plusDays(1);
+        int ändrade = 0;
+        for (String cacheKey : new TreeSet<>(inMemoryCache.keySet())) {
+            LocalDate datum = LocalDate.parse(cacheKey.substring(0, 10));
+            if (!datum.isBefore(från) && !datum.isAfter(till)
+                    && omvalidera(datum, Prisklass.valueOf(cacheKey.substring(11)))) {
+                ändrade++;
+            }
+        }
+        return ändrade;
+    }
 
-            // Steg 4: Spara i cache om cachning är på
-            if (cachingEnabled && !priser.isEmpty()) {
-                inMemoryCache.put(cacheKey, priser);
-                saveToDiskCache(cacheKey, response.body()); // Spara rådata till disk (framtida implementation)
+    /**
+     * Startar en bakgrundstråd som anropar {@link #omvalideraSenaste(int)} med jämna
+     * mellanrum, första gången efter ett intervall. Ett tidigare schema ersätts. Tråden
+     * håller inte JVM:en vid liv.
+     */
+    public synchronized void startaOmvalidering(Duration intervall, int dagarBakåt) {
+        if (intervall.isNegative() || intervall.isZero()) {
+            throw new IllegalArgumentException("Intervallet måste vara positivt: " + intervall);
+        }
+        stoppaOmvalidering();
+        omvalidering = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("elpriser-omvalidering").daemon().factory());
+        omvalidering.scheduleWithFixedDelay(() -> {
+            try {
+                omvalideraSenaste(dagarBakåt);
+            } catch (RuntimeException e) {
+                // Ett undantag skulle stoppa schemat, nästa varv får försöka igen
+                System.err.println("Omvalideringen misslyckades: " + e.getMessage());
             }
-            return priser;
+        }, intervall.toMillis(), intervall.toMillis(), TimeUnit.MILLISECONDS);
+    }
 
-        } catch (IOException | InterruptedException e) {
-            System.err.println("Ett fel inträffade vid hämtning av elpriser: " + e.getMessage());
-            // I ett produktionssystem skulle man vilja logga detta fel mer utförligt
-            Thread.currentThread().interrupt(); // Bra praxis vid InterruptedException
-            return Collections.emptyList();
+    /**
+     * Stoppar omvalideringen om den är igång.
+     */
+    public synchronized void stoppaOmvalidering() {
+        if (omvalidering != null) {
+            omvalidering.shutdownNow();
+            omvalidering = null;
         }
     }
 
+    /**
+     * Hämtar sammanfattningen (min, max, medel, billigaste timmar och fönster) för en dag.
+     * Finns dagen redan i sammanfattningsindexet används det, annars hämtas dagens priser.
+     *
+     * @return Sammanfattningen, eller null om det inte finns några priser för dagen.
+     */
+    public DailySummary getSammanfattning(LocalDate datum, Prisklass prisklass) {
+        DailySummary summary = cachingEnabled ? summaryIndex.get(datum, prisklass) : null;
+        if (summary != null) {
+            return summary;
+        }
+        List<Elpris> priser = getPriser(datum, prisklass);
+        if (priser.isEmpty()) {
+            return null;
+        }
+        // getPriser har normalt redan lagt dagen i indexet
+        summary = cachingEnabled ? summaryIndex.get(datum, prisklass) : null;
+        return summary != null ? summary : DailySummary.of(datum, prisklass, priser);
+    }
+
+    /**
+     * Hämtar sammanfattningar för alla dagar i perioden (inklusive båda datumen).
+     * Dagar som redan finns i indexet läses därifrån utan att priserna laddas, dagar utan
+     * priser hoppas över.
+     */
+    public List<DailySummary> getSammanfattningar(LocalDate från, LocalDate till, Prisklass prisklass) {
+        // Allt som redan finns i indexet i en läsning, sorterat på datum
+        List<DailySummary> iIndex = cachingEnabled ? summaryIndex.range(från, till, prisklass) : List.of();
+        List<DailySummary> result = new ArrayList<>();
+        int nästa = 0;
+        for (LocalDate datum = från; !datum.isAfter(till); datum = datum.plusDays(1)) {
+            if (nästa < iIndex.size() && iIndex.get(nästa).datum().equals(datum)) {
+                result.add(iIndex.get(nästa++));
+                continue;
+            }
+            DailySummary summary = getSammanfattning(datum, prisklass);
+            if (summary != null) {
+                result.add(summary);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gör en prognos för en dag som ännu inte är publicerad, utifrån de dagar för samma
+     * prisklass som hittills har hämtats till cachen. Priserna i prognosen är uppskattningar.
+     *
+     * @return Prognosen, med en tom lista om inga dagar för prisklassen har hämtats.
+     */
+    public PriceForecast getPrognos(LocalDate datum, Prisklass prisklass) {
+        return forecaster.forecast(datum, prisklass);
+    }
+
+    /**
+     * Hur billigt ett pris är jämfört med samma timme på dygnet under perioden, räknat på de
+     * dagar för prisklassen som hittills har hämtats till cachen. 0 betyder billigare än allt
+     * i historiken och 100 dyrare än allt.
+     *
+     * @return Percentilrangen (0-100), eller NaN om det saknas historik för timmen.
+     */
+    public double getPercentilrang(Elpris pris, Prisklass prisklass, PercentileRanker.Period period) {
+        return percentiler.percentileRank(prisklass, pris, period);
+    }
+
+    /**
+     * Registrerar en lyssnare som anropas för varje ny dag som läggs i cachen.
+     */
+    public void addListener(PriceListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(PriceListener listener) {
+        listeners.remove(listener);
+    }
+
     // --- Privata hjälpmetoder ---
 
-    private String buildUrl(LocalDate datum, Prisklass prisklass) {
-        String formattedDate = datum.format(URL_DATE_FORMATTER);
-        return String.format("%s/%s_%s.json", API_BASE_URL, formattedDate, prisklass.name());
+    private static Path defaultCacheDir() {
+        String dir = System.getProperty("elpriser.cache.dir");
+        return dir != null ? Paths.get(dir) : Paths.get(System.getProperty("user.home"), ".elpriser_cache");
     }
-    
+
+    // Lägger en nyss hämtad dag i sammanfattningsindexet om den inte redan finns där
+    private void indexera(LocalDate datum, Prisklass prisklass, PriceSeries priser, boolean persist) {
+        if (summaryIndex.get(datum, prisklass) == null) {
+            summaryIndex.put(DailySummary.of(datum, prisklass, priser), persist);
+        }
+    }
+
+    // Byter ut en rättad dag i minnet, vyerna, indexet och (om den kom från källan) på disk
+    private void ersätt(LocalDate datum, Prisklass prisklass, String cacheKey, List<Elpris> gamla, List<Elpris> nya,
+                        boolean persist) {
+        List<Elpris> oföränderlig = Collections.unmodifiableList(nya);
+        PriceSeries efter = PriceSeries.of(oföränderlig);
+        inMemoryCache.put(cacheKey, oföränderlig);
+        omräknadeVyer.keySet().removeIf(vyNyckel -> vyNyckel.startsWith(cacheKey + "_"));
+        summaryIndex.put(DailySummary.of(datum, prisklass, efter), persist);
+        if (persist) {
+            saveToSharedCache(cacheKey, efter);
+            saveToDiskCache(cacheKey, efter);
+        }
+        PriceSeries före = PriceSeries.of(gamla);
+        for (PriceListener listener : listeners) {
+            listener.onChanged(datum, prisklass, före, efter);
+        }
+    }
+
+    // Mock-svaret för en dag, null om det inte finns något
+    private static String mockSvar(LocalDate datum) {
+        Supplier<String> supplier = mockResponseSupplier;
+        return datedMockResponses.getOrDefault(datum, supplier == null ? null : supplier.get());
+    }
+
+    // CRC32C av svaret med längden i de höga bitarna, räcker för att känna igen ett oförändrat svar
+    private static long kontrollsumma(String body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue() ^ ((long) body.length() << 32);
+    }
+
     private String getCacheKey(LocalDate datum, Prisklass prisklass) {
         return datum.format(DateTimeFormatter.ISO_LOCAL_DATE) + "_" + prisklass.name();
     }
@@ -221,7 +725,7 @@ public final class ElpriserAPI {
      * En mycket enkel JSON-parser som är skräddarsydd för just detta API:s svarsformat.
      * Denna metod är inte en generell JSON-parser och är känslig för ändringar i formatet.
      */
-    private List<Elpris> parseSimpleJson(String json) {
+    static List<Elpris> parseSimpleJson(String json) {
         List<Elpris> priser = new ArrayList<>();
         // Ta bort yttre [ och ], samt eventuella blanksteg
         String trimmedJson = json.trim();
@@ -256,8 +760,8 @@ public final class ElpriserAPI {
                     Double.parseDouble(valueMap.get("SEK_per_kWh")),
                     Double.parseDouble(valueMap.get("EUR_per_kWh")),
                     Double.parseDouble(valueMap.get("EXR")),
-                    ZonedDateTime.parse(valueMap.get("time_start")),
-                    ZonedDateTime.parse(valueMap.get("time_end"))
+                    TimestampCodec.parse(valueMap.get("time_start")),
+                    TimestampCodec.parse(valueMap.get("time_end"))
                 ));
             } catch (Exception e) {
                 // Hoppa över objekt som inte kan parsas, logga ett fel
@@ -267,37 +771,153 @@ public final class ElpriserAPI {
         return priser;
     }
     
-    // --- Stub-metoder för disk-cache ---
-    
+    // --- Disk-cache ---
+
+    // Katalogen med en fil per dag i det binära formatet, null om inget sparas till disk
+    private Path dayCacheDir() {
+        return cacheDir == null ? null : cacheDir.resolve("dagar");
+    }
+
     /**
-     * STUB: Spara data till en fil i en dold katalog i användarens hemkatalog.
-     * Oimplementerad tills vidare.
+     * Sparar en dag till en fil i det binära formatet ({@link PriceCodec}) i cachekatalogen.
+     * Filen skrivs först till en temporär fil och flyttas sedan på plats, så att en annan
+     * process aldrig läser en halvskriven fil.
      */
-    private void saveToDiskCache(String cacheKey, String jsonData) {
-        // Framtida implementation:
-        // Path cacheDir = Paths.get(System.getProperty("user.home"), ".elpriser_cache");
-        // Files.createDirectories(cacheDir);
-        // Path cacheFile = cacheDir.resolve(cacheKey + ".json");
-        // Files.writeString(cacheFile, jsonData);
-        // System.out.println("Simulerar: Sparar " + cacheKey + " till disk.");
+    private void saveToDiskCache(String cacheKey, PriceSeries priser) {
+        Path dir = dayCacheDir();
+        if (dir == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, cacheKey, ".tmp");
+            Files.write(tmp, PriceCodec.encode(priser));
+            Files.move(tmp, dir.resolve(cacheKey + ".elp"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Kunde inte spara " + cacheKey + " till disk: " + e.getMessage());
+        }
     }
 
     /**
-     * STUB: Läs data från en fil i en dold katalog i användarens hemkatalog.
-     * Oimplementerad tills vidare.
+     * Läser en dag från disk-cachen.
      * @return En lista av Elpris-objekt om filen finns och kan läsas, annars null.
      */
     private List<Elpris> loadFromDiskCache(String cacheKey) {
-        // Framtida implementation:
-        // Path cacheFile = Paths.get(System.getProperty("user.home"), ".elpriser_cache", cacheKey + ".json");
-        // if (Files.exists(cacheFile)) {
-        //     String jsonData = Files.readString(cacheFile);
-        //     return parseSimpleJson(jsonData);
-        // }
-        // System.out.println("Simulerar: Försöker läsa " + cacheKey + " från disk. Fanns ej.");
-        return null;
+        Path dir = dayCacheDir();
+        if (dir == null) {
+            return null;
+        }
+        Path cacheFile = dir.resolve(cacheKey + ".elp");
+        try {
+            return PriceCodec.decode(Files.readAllBytes(cacheFile)).toList();
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Kunde inte läsa " + cacheKey + " från disk: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Sparar en dag i den delade cachen så att andra processer på datorn kan använda den
+    private void saveToSharedCache(String cacheKey, PriceSeries priser) {
+        if (deladCache == null) {
+            return;
+        }
+        try {
+            deladCache.put(cacheKey, PriceCodec.encode(priser));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Kunde inte spara " + cacheKey + " i delad cache: " + e.getMessage());
+        }
     }
 
+    /**
+     * Läser en dag från den delade cachen.
+     * @return En lista av Elpris-objekt om dagen finns där, annars null.
+     */
+    private List<Elpris> loadFromSharedCache(String cacheKey) {
+        if (deladCache == null) {
+            return null;
+        }
+        try {
+            byte[] data = deladCache.get(cacheKey);
+            return data == null ? null : PriceCodec.decode(data).toList();
+        } catch (IOException | RuntimeException e) {
+            // Den delade cachen är bara en genväg, ett fel i filen räknas som att dagen saknas
+            System.err.println("Kunde inte läsa " + cacheKey + " från delad cache: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // --- Ögonblicksbilder av cachen ---
+
+    private static final int SNAPSHOT_MAGIC = 0x454C5331; // "ELS1"
+
+    /**
+     * Sparar alla dagar i minnes-cachen till en fil, så att en annan instans (eller en ny
+     * process) kan starta med samma cache via {@link #laddaSnapshot(Path)}.
+     *
+     * @return Antalet dagar som sparades.
+     */
+    public int sparaSnapshot(Path fil) throws IOException {
+        Map<String, List<Elpris>> kopia = new java.util.TreeMap<>(inMemoryCache);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(fil)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(kopia.size());
+            for (Map.Entry<String, List<Elpris>> entry : kopia.entrySet()) {
+                byte[] data = PriceCodec.encode(PriceSeries.of(entry.getValue()));
+                out.writeUTF(entry.getKey());
+                out.writeInt(data.length);
+                out.write(data);
+            }
+        }
+        return kopia.size();
+    }
+
+    /**
+     * Läser in en fil skapad av {@link #sparaSnapshot(Path)} i minnes-cachen. Dagar som
+     * redan finns i cachen behålls.
+     *
+     * @return Antalet dagar som lades till.
+     * @throws IOException Om filen inte går att läsa, inte är en ögonblicksbild eller är trasig.
+     */
+    public int laddaSnapshot(Path fil) throws IOException {
+        int tillagda = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(fil)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Inte en ögonblicksbild av elpriscachen: " + fil);
+            }
+            // Antal och längder kommer från filen, så de kontrolleras mot filens storlek innan
+            // något allokeras. Varje dag tar minst 2 + 4 byte för nyckelns och datans längd.
+            long storlek = Files.size(fil);
+            int antal = in.readInt();
+            if (antal < 0 || antal > storlek / 6) {
+                throw new IOException("Trasig ögonblicksbild, orimligt antal dagar: " + antal);
+            }
+            for (int i = 0; i < antal; i++) {
+                String cacheKey = in.readUTF();
+                int längd = in.readInt();
+                if (längd < 0 || längd > storlek) {
+                    throw new IOException("Trasig ögonblicksbild, orimlig längd för " + cacheKey + ": " + längd);
+                }
+                byte[] data = new byte[längd];
+                in.readFully(data);
+                if (!cachingEnabled || inMemoryCache.containsKey(cacheKey)) {
+                    continue;
+                }
+                LocalDate datum;
+                Prisklass prisklass;
+                try {
+                    datum = LocalDate.parse(cacheKey.substring(0, 10));
+                    prisklass = Prisklass.valueOf(cacheKey.substring(11));
+                } catch (DateTimeException | IllegalArgumentException | IndexOutOfBoundsException e) {
+                    throw new IOException("Trasig ögonblicksbild, okänd nyckel: " + cacheKey, e);
+                }
+                cache(datum, prisklass, cacheKey, PriceCodec.decode(data).toList(), false, true);
+                tillagda++;
+            }
+        }
+        return tillagda;
+    }
 
     // --- Exempel på användning ---
 
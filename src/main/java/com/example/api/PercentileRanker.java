@@ -0,0 +1,210 @@
+package com.example.api;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Svarar på frågan "är det här priset billigt jämfört med de senaste 30/90/365 dagarna?".
+ * För varje elprisområde, timme på dygnet och period hålls en fördelning av historiska
+ * priser i ett histogram med fasta fack om 0,5 öre. Histogrammen är Fenwick-träd, så
+ * percentilrangen för ett pris räknas ut med ett fast antal steg (logaritmen av antalet
+ * fack) oavsett hur lång historiken är.
+ * <p>
+ * Modellen uppdateras när {@link ElpriserAPI} cachar en ny dag. Perioderna räknas bakåt
+ * från den senaste dagen som har lästs in för området: när en nyare dag kommer plockas de
+ * dagar som faller ur en period bort ur just den periodens histogram.
+ */
+public final class PercentileRanker implements PriceListener {
+
+    private static final double MIN_SEK = -1.0;
+    private static final double FACK_BREDD = 0.005;
+    // Från -1 till 11 kr/kWh, priser utanför hamnar i första eller sista facket
+    private static final int FACK = 2400;
+    private static final int TIMMAR = 24;
+
+    /**
+     * Perioderna som percentilrangen kan räknas över.
+     */
+    public enum Period {
+        DAYS_30(30),
+        DAYS_90(90),
+        DAYS_365(365);
+
+        private final int dagar;
+
+        Period(int dagar) {
+            this.dagar = dagar;
+        }
+
+        public int dagar() {
+            return dagar;
+        }
+    }
+
+    private final Map<ElpriserAPI.Prisklass, Zone> zoner = new ConcurrentHashMap<>();
+
+    // Tillståndet för ett elprisområde
+    private static final class Zone {
+        // Facken för varje dags priser per timme, bara dagar inom den längsta perioden sparas
+        final TreeMap<LocalDate, int[][]> dagar = new TreeMap<>();
+        // Ett Fenwick-träd per period och timme, plus antalet priser i varje
+        final long[][][] träd = new long[Period.values().length][TIMMAR][FACK + 1];
+        final long[][] antal = new long[Period.values().length][TIMMAR];
+        LocalDate senasteDag;
+    }
+
+    @Override
+    public void onNewDay(LocalDate datum, ElpriserAPI.Prisklass prisklass, PriceSeries priser) {
+        if (priser.isEmpty()) {
+            return;
+        }
+        Zone zon = zoner.computeIfAbsent(prisklass, k -> new Zone());
+        synchronized (zon) {
+            if (zon.senasteDag != null && !datum.isAfter(zon.senasteDag.minusDays(Period.DAYS_365.dagar))) {
+                return; // För gammal för alla perioder
+            }
+            int[][] gammal = zon.dagar.remove(datum);
+            if (gammal != null) {
+                uppdatera(zon, datum, gammal, -1);
+            }
+            int[][] fack = fack(priser);
+            zon.dagar.put(datum, fack);
+            if (zon.senasteDag == null || datum.isAfter(zon.senasteDag)) {
+                LocalDate föregående = zon.senasteDag;
+                zon.senasteDag = datum;
+                utanför(zon, föregående);
+            }
+            uppdatera(zon, datum, fack, 1);
+        }
+    }
+
+    /**
+     * Percentilrangen (0-100) för ett pris jämfört med priserna under samma timme på dygnet
+     * i perioden. Priser i samma fack räknas till hälften, så ett pris mitt i historiken får
+     * ungefär 50.
+     *
+     * @return Rangen, eller NaN om det inte finns någon historik för timmen.
+     */
+    public double percentileRank(ElpriserAPI.Prisklass prisklass, ElpriserAPI.Elpris pris, Period period) {
+        return percentileRank(prisklass, pris.timeStart().getHour(), pris.sekPerKWh(), period);
+    }
+
+    /**
+     * Som {@link #percentileRank(ElpriserAPI.Prisklass, ElpriserAPI.Elpris, Period)} för ett
+     * pris i kr/kWh under en given timme (0-23, lokal tid).
+     */
+    public double percentileRank(ElpriserAPI.Prisklass prisklass, int timme, double sekPerKWh, Period period) {
+        Zone zon = zoner.get(prisklass);
+        if (zon == null) {
+            return Double.NaN;
+        }
+        int fack = fack(sekPerKWh);
+        synchronized (zon) {
+            long[] träd = zon.träd[period.ordinal()][timme];
+            long totalt = zon.antal[period.ordinal()][timme];
+            if (totalt == 0) {
+                return Double.NaN;
+            }
+            long under = summa(träd, fack);
+            long lika = summa(träd, fack + 1) - under;
+            return 100.0 * (under + lika / 2.0) / totalt;
+        }
+    }
+
+    /**
+     * Antal priser som ingår i perioden för en timme.
+     */
+    public long count(ElpriserAPI.Prisklass prisklass, int timme, Period period) {
+        Zone zon = zoner.get(prisklass);
+        if (zon == null) {
+            return 0;
+        }
+        synchronized (zon) {
+            return zon.antal[period.ordinal()][timme];
+        }
+    }
+
+    // Lägger till (tecken 1) eller tar bort (-1) en dag i alla perioder den ingår i
+    private static void uppdatera(Zone zon, LocalDate datum, int[][] fack, int tecken) {
+        for (Period period : Period.values()) {
+            if (ingår(zon, datum, period)) {
+                for (int timme = 0; timme < TIMMAR; timme++) {
+                    for (int f : fack[timme]) {
+                        addera(zon.träd[period.ordinal()][timme], f, tecken);
+                    }
+                    zon.antal[period.ordinal()][timme] += (long) tecken * fack[timme].length;
+                }
+            }
+        }
+    }
+
+    // Tar bort dagar som föll ur en period när senaste dagen flyttades fram från föregående
+    private static void utanför(Zone zon, LocalDate föregående) {
+        if (föregående == null) {
+            return;
+        }
+        for (Period period : Period.values()) {
+            LocalDate gammalGräns = föregående.minusDays(period.dagar);
+            LocalDate nyGräns = zon.senasteDag.minusDays(period.dagar);
+            for (Map.Entry<LocalDate, int[][]> dag : zon.dagar.subMap(gammalGräns, false, nyGräns, true).entrySet()) {
+                for (int timme = 0; timme < TIMMAR; timme++) {
+                    for (int f : dag.getValue()[timme]) {
+                        addera(zon.träd[period.ordinal()][timme], f, -1);
+                    }
+                    zon.antal[period.ordinal()][timme] -= dag.getValue()[timme].length;
+                }
+            }
+        }
+        zon.dagar.headMap(zon.senasteDag.minusDays(Period.DAYS_365.dagar), true).clear();
+    }
+
+    private static boolean ingår(Zone zon, LocalDate datum, Period period) {
+        return datum.isAfter(zon.senasteDag.minusDays(period.dagar));
+    }
+
+    // Facken för dagens priser, grupperade per lokal timme
+    private static int[][] fack(PriceSeries priser) {
+        int[] perTimme = new int[TIMMAR];
+        int[] timmar = new int[priser.size()];
+        for (int i = 0; i < priser.size(); i++) {
+            long lokal = priser.startEpochSecond(i) + priser.startOffsetSeconds(i);
+            timmar[i] = (int) (Math.floorMod(lokal, 86400L) / 3600);
+            perTimme[timmar[i]]++;
+        }
+        int[][] fack = new int[TIMMAR][];
+        for (int timme = 0; timme < TIMMAR; timme++) {
+            fack[timme] = new int[perTimme[timme]];
+            perTimme[timme] = 0;
+        }
+        for (int i = 0; i < priser.size(); i++) {
+            fack[timmar[i]][perTimme[timmar[i]]++] = fack(priser.sekPerKWh(i));
+        }
+        return fack;
+    }
+
+    private static int fack(double sekPerKWh) {
+        if (Double.isNaN(sekPerKWh)) {
+            return 0;
+        }
+        int fack = (int) Math.floor((sekPerKWh - MIN_SEK) / FACK_BREDD);
+        return Math.max(0, Math.min(FACK - 1, fack));
+    }
+
+    // Fenwick-träd: träd[i] täcker facken (i - lowbit(i), i], index 1-baserat
+    private static void addera(long[] träd, int fack, long värde) {
+        for (int i = fack + 1; i < träd.length; i += i & -i) {
+            träd[i] += värde;
+        }
+    }
+
+    // Antal priser i facken 0 till fack - 1
+    private static long summa(long[] träd, int fack) {
+        long summa = 0;
+        for (int i = fack; i > 0; i -= i & -i) {
+            summa += träd[i];
+        }
+        return summa;
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Ett kompakt binärt format för en dags priser, som används för disk-cachen och för
+ * ögonblicksbilder av cachen. Formatet är betydligt mindre än JSON-svaret och går att
+ * läsa utan någon textparsning.
+ * <p>
+ * Layout (version 1), där "varint" är ett osignerat LEB128-tal och "zigzag" ett signerat
+ * tal kodat som varint:
+ * <pre>
+ *   'E' 'L' 'P' version(1 byte) flaggor(1 byte)
+ *   antal rader (varint)
+ *   första start (zigzag, epoch-sekunder), första offset (zigzag, sekunder)
+ *   per rad:
+ *     start - föregående slut (zigzag), längd i sekunder (varint)
+ *     startoffset - föregående slutoffset (zigzag), slutoffset - startoffset (zigzag)
+ *     SEK, EUR och EXR som delta mot föregående rad (zigzag), i fast decimalform
+ * </pre>
+ * Priserna lagras som heltal i 1/100 000 SEK (respektive EUR) och kursen i 1/1 000 000.
+ * Om något värde inte kan representeras exakt sätts flaggan {@link #FLAG_RAW_DOUBLES} och
+ * alla värden skrivs som råa double-bitar i stället, så att avkodningen alltid är exakt.
+ */
+public final class PriceCodec {
+
+    public static final int VERSION = 1;
+    static final int FLAG_RAW_DOUBLES = 1;
+
+    private static final double PRICE_SCALE = 100_000;
+    private static final double EXR_SCALE = 1_000_000;
+
+    // Minsta storlek på en rad: fyra tidsfält och tre priser, minst en byte per varint
+    private static final int MIN_BYTES_PER_RAD = 4 + 3;
+    private static final int MIN_BYTES_PER_RAD_RAW = 4 + 3 * 8;
+    // Övre gräns för strömmar där resten av datan inte är känd, långt över en dags kvartar
+    private static final int MAX_RADER = 1 << 16;
+
+    private PriceCodec() {
+    }
+
+    /**
+     * Kodar en serie till en byte-array.
+     */
+    public static byte[] encode(PriceSeries serie) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + serie.size() * 12);
+        try {
+            write(serie, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Kan inte hända för en ByteArrayOutputStream
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Avkodar en serie från en byte-array.
+     * @throws IOException Om datan inte är i det här formatet, är avkortad eller har ett
+     *                     antal rader som inte får plats i datan.
+     */
+    public static PriceSeries decode(byte[] data) throws IOException {
+        return read(new Reader(data));
+    }
+
+    /**
+     * Skriver en serie till en ström.
+     */
+    public static void write(PriceSeries serie, OutputStream out) throws IOException {
+        int n = serie.size();
+        boolean raw = !fitsFixedPoint(serie);
+        Writer w = new Writer(out);
+        out.write('E');
+        out.write('L');
+        out.write('P');
+        out.write(VERSION);
+        out.write(raw ? FLAG_RAW_DOUBLES : 0);
+        w.varint(n);
+        if (n == 0) {
+            return;
+        }
+        w.zigzag(serie.startEpochSecond(0));
+        w.zigzag(serie.startOffsetSeconds(0));
+
+        long föregåendeSlut = serie.startEpochSecond(0);
+        int föregåendeOffset = serie.startOffsetSeconds(0);
+        long sek = 0;
+        long eur = 0;
+        long exr = 0;
+        for (int i = 0; i < n; i++) {
+            w.zigzag(serie.startEpochSecond(i) - föregåendeSlut);
+            w.varint(serie.durationSeconds(i));
+            w.zigzag(serie.startOffsetSeconds(i) - föregåendeOffset);
+            w.zigzag(serie.endOffsetSeconds(i) - serie.startOffsetSeconds(i));
+            föregåendeSlut = serie.endEpochSecond(i);
+            föregåendeOffset = serie.endOffsetSeconds(i);
+
+            if (raw) {
+                w.fixed64(Double.doubleToLongBits(serie.sekPerKWh(i)));
+                w.fixed64(Double.doubleToLongBits(serie.eurPerKWh(i)));
+                w.fixed64(Double.doubleToLongBits(serie.exr(i)));
+            } else {
+                long nySek = Math.round(serie.sekPerKWh(i) * PRICE_SCALE);
+                long nyEur = Math.round(serie.eurPerKWh(i) * PRICE_SCALE);
+                long nyExr = Math.round(serie.exr(i) * EXR_SCALE);
+                w.zigzag(nySek - sek);
+                w.zigzag(nyEur - eur);
+                w.zigzag(nyExr - exr);
+                sek = nySek;
+                eur = nyEur;
+                exr = nyExr;
+            }
+        }
+    }
+
+    /**
+     * Läser en serie från en ström. Strömmen läses bara så långt som serien räcker.
+     * @throws IOException Om datan inte är i det här formatet eller är avkortad.
+     */
+    public static PriceSeries read(InputStream in) throws IOException {
+        return read(new Reader(in));
+    }
+
+    private static PriceSeries read(Reader r) throws IOException {
+        if (r.u8() != 'E' || r.u8() != 'L' || r.u8() != 'P') {
+            throw new IOException("Inte ett binärt prisformat");
+        }
+        int version = r.u8();
+        if (version != VERSION) {
+            throw new IOException("Okänd version av prisformatet: " + version);
+        }
+        boolean raw = (r.u8() & FLAG_RAW_DOUBLES) != 0;
+        long antal = r.varint();
+        // Raderna allokeras innan de läses, så ett trasigt antal får inte ge en enorm allokering
+        long minstaRad = raw ? MIN_BYTES_PER_RAD_RAW : MIN_BYTES_PER_RAD;
+        if (antal < 0 || antal > MAX_RADER || antal > r.remaining() / minstaRad) {
+            throw new IOException("Orimligt antal rader i prisdata: " + antal);
+        }
+        int n = (int) antal;
+        double[] sek = new double[n];
+        double[] eur = new double[n];
+        double[] exr = new double[n];
+        long[] start = new long[n];
+        long[] end = new long[n];
+        int[] startOffsets = new int[n];
+        int[] endOffsets = new int[n];
+        if (n == 0) {
+            return new PriceSeries(sek, eur, exr, start, end, startOffsets, endOffsets, null);
+        }
+        long föregåendeSlut = r.zigzag();
+        int föregåendeOffset = (int) r.zigzag();
+        long sekEnheter = 0;
+        long eurEnheter = 0;
+        long exrEnheter = 0;
+        for (int i = 0; i < n; i++) {
+            start[i] = föregåendeSlut + r.zigzag();
+            end[i] = start[i] + r.varint();
+            startOffsets[i] = föregåendeOffset + (int) r.zigzag();
+            endOffsets[i] = startOffsets[i] + (int) r.zigzag();
+            föregåendeSlut = end[i];
+            föregåendeOffset = endOffsets[i];
+
+            if (raw) {
+                sek[i] = Double.longBitsToDouble(r.fixed64());
+                eur[i] = Double.longBitsToDouble(r.fixed64());
+                exr[i] = Double.longBitsToDouble(r.fixed64());
+            } else {
+                sekEnheter += r.zigzag();
+                eurEnheter += r.zigzag();
+                exrEnheter += r.zigzag();
+                sek[i] = sekEnheter / PRICE_SCALE;
+                eur[i] = eurEnheter / PRICE_SCALE;
+                exr[i] = exrEnheter / EXR_SCALE;
+            }
+        }
+        return new PriceSeries(sek, eur, exr, start, end, startOffsets, endOffsets, null);
+    }
+
+    // Sant om alla värden kan avkodas exakt från fast decimalform
+    private static boolean fitsFixedPoint(PriceSeries serie) {
+        for (int i = 0; i < serie.size(); i++) {
+            if (!fits(serie.sekPerKWh(i), PRICE_SCALE)
+                    || !fits(serie.eurPerKWh(i), PRICE_SCALE)
+                    || !fits(serie.exr(i), EXR_SCALE)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean fits(double value, double scale) {
+        double scaled = value * scale;
+        return Math.abs(scaled) < 1e15 && Math.round(scaled) / scale == value;
+    }
+
+    // --- Varint-hjälpare ---
+
+    private static final class Writer {
+        private final OutputStream out;
+
+        Writer(OutputStream out) {
+            this.out = out;
+        }
+
+        void varint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        void zigzag(long value) throws IOException {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        void fixed64(long value) throws IOException {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (value >>> shift));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private final InputStream in;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+            this.in = null;
+        }
+
+        Reader(InputStream in) {
+            this.data = null;
+            this.in = in;
+        }
+
+        int u8() throws IOException {
+            if (data != null) {
+                if (position >= data.length) {
+                    throw new EOFException("Avkortad prisdata");
+                }
+                return data[position++] & 0xFF;
+            }
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Avkortad prisdata");
+            }
+            return b;
+        }
+
+        // Hur många byte som finns kvar, eller Long.MAX_VALUE för en ström
+        long remaining() {
+            return data != null ? data.length - position : Long.MAX_VALUE;
+        }
+
+        long varint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = u8();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("För långt varint-tal");
+        }
+
+        long zigzag() throws IOException {
+            long value = varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long fixed64() throws IOException {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | u8();
+            }
+            return value;
+        }
+    }
+}
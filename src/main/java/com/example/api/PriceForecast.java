@@ -0,0 +1,25 @@
+package com.example.api;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Uppskattade priser för en dag som ännu inte är publicerad. Priserna är en prognos från
+ * {@link PriceForecaster} och ska inte blandas ihop med riktiga priser.
+ *
+ * @param datum Dagen prognosen gäller.
+ * @param prisklass Elprisområdet.
+ * @param priser De uppskattade priserna, tom om det inte finns någon historik.
+ * @param antalDagar Hur många dagars historik prognosen bygger på.
+ */
+public record PriceForecast(
+        LocalDate datum,
+        ElpriserAPI.Prisklass prisklass,
+        List<ElpriserAPI.Elpris> priser,
+        int antalDagar
+) {
+
+    public boolean isEmpty() {
+        return priser.isEmpty();
+    }
+}
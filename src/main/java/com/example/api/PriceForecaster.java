@@ -0,0 +1,165 @@
+package com.example.api;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * En enkel prognos för dagar som ännu inte är publicerade. För varje elprisområde räknas
+ * ett exponentiellt utjämnat medelvärde per kvart på dygnet (säsongsmässig utjämning med
+ * dygnet som säsong) över dagarna före prognosdagen. Äldsta dagen är startvärdet, därefter
+ * vägs varje dag in i datumordning med faktorn {@code alpha}, så med en enda dag blir
+ * prognosen samma som den dagen (seasonal naive).
+ * <p>
+ * Modellen uppdateras när {@link ElpriserAPI} cachar en ny dag. Dagarna sparas per kvart
+ * för de senaste {@value #HISTORIK_DAGAR} dagarna och utjämningen görs när prognosen
+ * efterfrågas, så resultatet beror inte på i vilken ordning dagarna hämtades, och en rättad
+ * dag ersätter helt enkelt den gamla. En prognos kostar lika mycket oavsett hur lång
+ * historiken är (högst {@value #HISTORIK_DAGAR} gånger 96 kvartar).
+ */
+public final class PriceForecaster implements PriceListener {
+
+    /**
+     * Hur många dagar bakåt från den senaste dagen som sparas. Med standard-alpha väger
+     * äldre dagar mindre än en hundramiljondel.
+     */
+    public static final int HISTORIK_DAGAR = 28;
+
+    private static final int SLOT_SECONDS = 15 * 60;
+    private static final int SLOTS_PER_DAY = 24 * 60 * 60 / SLOT_SECONDS;
+
+    private final double alpha;
+    private final Map<ElpriserAPI.Prisklass, NavigableMap<LocalDate, Dag>> zoner = new ConcurrentHashMap<>();
+
+    // En dags priser utlagda per kvart på dygnet
+    private record Dag(double[] sek, double[] eur, boolean[] täckt, double exr, int intervallSekunder) {}
+
+    /**
+     * Skapar en prognosmodell med utjämningsfaktorn 0,5.
+     */
+    public PriceForecaster() {
+        this(0.5);
+    }
+
+    /**
+     * @param alpha Hur mycket en ny dag väger, mellan 0 (exklusive) och 1. Värdet 1 ger en
+     *              ren seasonal naive-prognos (gårdagens priser).
+     */
+    public PriceForecaster(double alpha) {
+        if (!(alpha > 0 && alpha <= 1)) {
+            throw new IllegalArgumentException("alpha måste vara i intervallet (0, 1]: " + alpha);
+        }
+        this.alpha = alpha;
+    }
+
+    /**
+     * Lägger till en dag, eller ersätter den om den redan finns. Dagar i vilken ordning som
+     * helst vägs in, bara dagar mer än {@value #HISTORIK_DAGAR} dagar före den senaste
+     * dagen för området ignoreras.
+     */
+    @Override
+    public void onNewDay(LocalDate datum, ElpriserAPI.Prisklass prisklass, PriceSeries priser) {
+        if (priser.isEmpty()) {
+            return;
+        }
+        NavigableMap<LocalDate, Dag> dagar = zoner.computeIfAbsent(prisklass, k -> new TreeMap<>());
+        synchronized (dagar) {
+            if (!dagar.isEmpty() && datum.isBefore(dagar.lastKey().minusDays(HISTORIK_DAGAR))) {
+                return;
+            }
+            dagar.put(datum, dag(priser));
+            dagar.headMap(dagar.lastKey().minusDays(HISTORIK_DAGAR), false).clear();
+        }
+    }
+
+    /**
+     * Gör en prognos för en dag från dagarna före den. Dagen delas in i intervall med samma
+     * längd som den senaste av de dagarna, i Stockholms lokala tid (så en dag med
+     * sommartidsomställning får 23 eller 25 timmar).
+     *
+     * @return Prognosen, med en tom lista om det saknas historik för området.
+     */
+    public PriceForecast forecast(LocalDate datum, ElpriserAPI.Prisklass prisklass) {
+        NavigableMap<LocalDate, Dag> alla = zoner.get(prisklass);
+        if (alla == null) {
+            return new PriceForecast(datum, prisklass, Collections.emptyList(), 0);
+        }
+        double[] modellSek = new double[SLOTS_PER_DAY];
+        double[] modellEur = new double[SLOTS_PER_DAY];
+        boolean[] startad = new boolean[SLOTS_PER_DAY];
+        Dag senaste;
+        int antalDagar;
+        synchronized (alla) {
+            NavigableMap<LocalDate, Dag> historik = alla.subMap(datum.minusDays(HISTORIK_DAGAR), true, datum, false);
+            if (historik.isEmpty()) {
+                return new PriceForecast(datum, prisklass, Collections.emptyList(), 0);
+            }
+            // Kvartar utan pris (t.ex. den saknade timmen vid sommartid) behåller sitt gamla värde
+            for (Dag dag : historik.values()) {
+                for (int s = 0; s < SLOTS_PER_DAY; s++) {
+                    if (!dag.täckt()[s]) {
+                        continue;
+                    }
+                    if (!startad[s]) {
+                        modellSek[s] = dag.sek()[s];
+                        modellEur[s] = dag.eur()[s];
+                        startad[s] = true;
+                    } else {
+                        modellSek[s] += alpha * (dag.sek()[s] - modellSek[s]);
+                        modellEur[s] += alpha * (dag.eur()[s] - modellEur[s]);
+                    }
+                }
+            }
+            senaste = historik.lastEntry().getValue();
+            antalDagar = historik.size();
+        }
+
+        long start = datum.atStartOfDay(TimestampCodec.STOCKHOLM).toEpochSecond();
+        long slut = datum.plusDays(1).atStartOfDay(TimestampCodec.STOCKHOLM).toEpochSecond();
+        int steg = senaste.intervallSekunder();
+        int kvartarPerSteg = steg / SLOT_SECONDS;
+        List<ElpriserAPI.Elpris> priser = new ArrayList<>();
+        for (long t = start; t < slut; t += steg) {
+            // Medelvärdet av kvartarna i intervallet
+            int första = slot(t);
+            double sek = 0;
+            double eur = 0;
+            for (int j = 0; j < kvartarPerSteg; j++) {
+                sek += modellSek[(första + j) % SLOTS_PER_DAY];
+                eur += modellEur[(första + j) % SLOTS_PER_DAY];
+            }
+            priser.add(new ElpriserAPI.Elpris(sek / kvartarPerSteg, eur / kvartarPerSteg, senaste.exr(),
+                    TimestampCodec.toStockholm(t), TimestampCodec.toStockholm(Math.min(t + steg, slut))));
+        }
+        return new PriceForecast(datum, prisklass, Collections.unmodifiableList(priser), antalDagar);
+    }
+
+    // Dagens priser utlagda per kvart på dygnet, längre intervall fyller flera kvartar
+    private static Dag dag(PriceSeries priser) {
+        double[] sek = new double[SLOTS_PER_DAY];
+        double[] eur = new double[SLOTS_PER_DAY];
+        boolean[] täckt = new boolean[SLOTS_PER_DAY];
+        for (int i = 0; i < priser.size(); i++) {
+            int första = slot(priser.startEpochSecond(i));
+            int antal = (int) Math.max(1, priser.durationSeconds(i) / SLOT_SECONDS);
+            for (int j = 0; j < antal && första + j < SLOTS_PER_DAY; j++) {
+                sek[första + j] = priser.sekPerKWh(i);
+                eur[första + j] = priser.eurPerKWh(i);
+                täckt[första + j] = true;
+            }
+        }
+        return new Dag(sek, eur, täckt, priser.exr(priser.size() - 1),
+                (int) Math.max(SLOT_SECONDS, priser.durationSeconds(0)));
+    }
+
+    // Kvarten på dygnet i Stockholms lokala tid
+    private static int slot(long epochSecond) {
+        long local = epochSecond + TimestampCodec.stockholmOffsetSeconds(epochSecond);
+        return (int) (Math.floorMod(local, 86400L) / SLOT_SECONDS);
+    }
+}
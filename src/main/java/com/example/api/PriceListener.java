@@ -0,0 +1,27 @@
+package com.example.api;
+
+import java.time.LocalDate;
+
+/**
+ * Lyssnare som anropas när {@link ElpriserAPI} lägger en ny dag i cachen. Används av t.ex.
+ * {@link PriceForecaster} för att uppdateras stegvis i stället för att läsa om historiken.
+ * Anropen kan komma från flera trådar samtidigt, men aldrig två gånger för samma dag. En dag
+ * som källan senare rättar kommer i stället till {@link #onChanged}.
+ */
+@FunctionalInterface
+public interface PriceListener {
+
+    void onNewDay(LocalDate datum, ElpriserAPI.Prisklass prisklass, PriceSeries priser);
+
+    /**
+     * Anropas när omvalideringen upptäcker att en dag i cachen har publicerats om med andra
+     * priser. Standard är att skicka den nya versionen till {@link #onNewDay}, vilket räcker
+     * för lyssnare som ersätter en dag de redan har sett.
+     *
+     * @param före Priserna som fanns i cachen.
+     * @param efter De nya priserna, som nu finns i cachen.
+     */
+    default void onChanged(LocalDate datum, ElpriserAPI.Prisklass prisklass, PriceSeries före, PriceSeries efter) {
+        onNewDay(datum, prisklass, efter);
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.api;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * En kolumnbaserad (primitiv) vy av en prislista. Priser och tider lagras i egna arrayer
+ * så att analyser kan loopa över {@code double}/{@code long} utan boxning och utan att
+ * gå via {@link ZonedDateTime}. Serien är oföränderlig.
+ */
+public final class PriceSeries {
+
+    private final double[] sekPerKWh;
+    private final double[] eurPerKWh;
+    private final double[] exr;
+    private final long[] startEpochSeconds;
+    private final long[] endEpochSeconds;
+    private final int[] startOffsets;
+    private final int[] endOffsets;
+
+    // Ursprungslistan om serien skapades från Elpris-objekt, annars null
+    private final List<ElpriserAPI.Elpris> source;
+
+    PriceSeries(double[] sekPerKWh, double[] eurPerKWh, double[] exr,
+                long[] startEpochSeconds, long[] endEpochSeconds,
+                int[] startOffsets, int[] endOffsets,
+                List<ElpriserAPI.Elpris> source) {
+        this.sekPerKWh = sekPerKWh;
+        this.eurPerKWh = eurPerKWh;
+        this.exr = exr;
+        this.startEpochSeconds = startEpochSeconds;
+        this.endEpochSeconds = endEpochSeconds;
+        this.startOffsets = startOffsets;
+        this.endOffsets = endOffsets;
+        this.source = source;
+    }
+
+    /**
+     * Skapar en kolumnvy av en lista med elpriser. Listan kopieras (om den inte redan är en
+     * oföränderlig {@code List.copyOf}-lista), så att ändringar i den efteråt inte får
+     * kolumnerna och {@link #toList()} att gå isär. Elpris-objekten delas.
+     */
+    public static PriceSeries of(List<ElpriserAPI.Elpris> lista) {
+        List<ElpriserAPI.Elpris> priser = List.copyOf(lista);
+        int n = priser.size();
+        double[] sek = new double[n];
+        double[] eur = new double[n];
+        double[] exr = new double[n];
+        long[] start = new long[n];
+        long[] end = new long[n];
+        int[] startOffsets = new int[n];
+        int[] endOffsets = new int[n];
+        for (int i = 0; i < n; i++) {
+            ElpriserAPI.Elpris pris = priser.get(i);
+            sek[i] = pris.sekPerKWh();
+            eur[i] = pris.eurPerKWh();
+            exr[i] = pris.exr();
+            start[i] = pris.timeStart().toEpochSecond();
+            end[i] = pris.timeEnd().toEpochSecond();
+            startOffsets[i] = pris.timeStart().getOffset().getTotalSeconds();
+            endOffsets[i] = pris.timeEnd().getOffset().getTotalSeconds();
+        }
+        return new PriceSeries(sek, eur, exr, start, end, startOffsets, endOffsets, priser);
+    }
+
+    /**
+     * Slår ihop flera serier (t.ex. en per dag) till en enda serie i samma ordning.
+     */
+    public static PriceSeries concat(List<PriceSeries> serier) {
+        int n = 0;
+        for (PriceSeries serie : serier) {
+            n += serie.size();
+        }
+        double[] sek = new double[n];
+        double[] eur = new double[n];
+        double[] exr = new double[n];
+        long[] start = new long[n];
+        long[] end = new long[n];
+        int[] startOffsets = new int[n];
+        int[] endOffsets = new int[n];
+        int position = 0;
+        for (PriceSeries serie : serier) {
+            int m = serie.size();
+            System.arraycopy(serie.sekPerKWh, 0, sek, position, m);
+            System.arraycopy(serie.eurPerKWh, 0, eur, position, m);
+            System.arraycopy(serie.exr, 0, exr, position, m);
+            System.arraycopy(serie.startEpochSeconds, 0, start, position, m);
+            System.arraycopy(serie.endEpochSeconds, 0, end, position, m);
+            System.arraycopy(serie.startOffsets, 0, startOffsets, position, m);
+            System.arraycopy(serie.endOffsets, 0, endOffsets, position, m);
+            position += m;
+        }
+        return new PriceSeries(sek, eur, exr, start, end, startOffsets, endOffsets, null);
+    }
+
+    public int size() {
+        return sekPerKWh.length;
+    }
+
+    public boolean isEmpty() {
+        return sekPerKWh.length == 0;
+    }
+
+    public double sekPerKWh(int index) {
+        return sekPerKWh[index];
+    }
+
+    public double eurPerKWh(int index) {
+        return eurPerKWh[index];
+    }
+
+    public double exr(int index) {
+        return exr[index];
+    }
+
+    public long startEpochSecond(int index) {
+        return startEpochSeconds[index];
+    }
+
+    public long endEpochSecond(int index) {
+        return endEpochSeconds[index];
+    }
+
+    public int startOffsetSeconds(int index) {
+        return startOffsets[index];
+    }
+
+    public int endOffsetSeconds(int index) {
+        return endOffsets[index];
+    }
+
+    /**
+     * Returnerar intervallets längd i sekunder.
+     */
+    public long durationSeconds(int index) {
+        return endEpochSeconds[index] - startEpochSeconds[index];
+    }
+
+    /**
+     * Returnerar en kopia av SEK-kolumnen.
+     */
+    public double[] sekColumn() {
+        return sekPerKWh.clone();
+    }
+
+    /**
+     * Returnerar en kopia av EUR-kolumnen.
+     */
+    public double[] eurColumn() {
+        return eurPerKWh.clone();
+    }
+
+    /**
+     * Returnerar en kopia av växelkurskolumnen (SEK per EUR).
+     */
+    public double[] exrColumn() {
+        return exr.clone();
+    }
+
+    // Kolumnerna utan kopiering, för loopar inom paketet som bara läser
+    double[] sekValues() {
+        return sekPerKWh;
+    }
+
+    double[] eurValues() {
+        return eurPerKWh;
+    }
+
+    double[] exrValues() {
+        return exr;
+    }
+
+    /**
+     * Returnerar ett {@link ElpriserAPI.Elpris} för given rad. Om serien skapades från en
+     * lista returneras originalobjektet, annars skapas ett nytt.
+     */
+    public ElpriserAPI.Elpris elpris(int index) {
+        if (source != null) {
+            return source.get(index);
+        }
+        return new ElpriserAPI.Elpris(sekPerKWh[index], eurPerKWh[index], exr[index],
+                TimestampCodec.toZonedDateTime(startEpochSeconds[index], startOffsets[index]),
+                TimestampCodec.toZonedDateTime(endEpochSeconds[index], endOffsets[index]));
+    }
+
+    /**
+     * Returnerar serien som en oföränderlig lista av elpriser. Om serien inte skapades från
+     * en lista skapas alla Elpris-objekt direkt, så att listan alltid ger samma objekt.
+     */
+    public List<ElpriserAPI.Elpris> toList() {
+        if (source != null) {
+            return source;
+        }
+        List<ElpriserAPI.Elpris> priser = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            priser.add(elpris(i));
+        }
+        return Collections.unmodifiableList(priser);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.api;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Varifrån {@link ElpriserAPI} hämtar rådata (JSON) för en dag. Standard är elprisetjustnu.se
+ * via HTTP, men varje instans av API:et kan få en egen källa, t.ex. en lokal server i tester.
+ * Implementationer måste vara trådsäkra.
+ */
+@FunctionalInterface
+public interface PriceSource {
+
+    String DEFAULT_BASE_URL = "https://www.elprisetjustnu.se/api/v1/prices";
+
+    /**
+     * Hämtar JSON-svaret för en dag och prisklass.
+     *
+     * @return JSON-texten, eller null om det inte finns några priser för dagen (t.ex. HTTP 404).
+     * @throws IOException Om hämtningen misslyckades av något annat skäl.
+     */
+    String fetch(LocalDate datum, ElpriserAPI.Prisklass prisklass) throws IOException, InterruptedException;
+
+    /**
+     * Hämtar dagen igen om den har ändrats sedan versionen med den givna ETag:en. Källor
+     * som inte kan svara villkorligt hämtar hela dagen, det är standard.
+     *
+     * @param etag ETag från förra hämtningen, eller null.
+     * @return Svaret, med {@link Response#notModified()} satt om dagen inte har ändrats.
+     * @throws IOException Om hämtningen misslyckades av något annat skäl.
+     */
+    default Response fetch(LocalDate datum, ElpriserAPI.Prisklass prisklass, String etag) throws IOException, InterruptedException {
+        return new Response(fetch(datum, prisklass), null, false);
+    }
+
+    /**
+     * Svaret från en villkorlig hämtning.
+     *
+     * @param body JSON-texten, eller null om det inte finns några priser eller om dagen inte har ändrats.
+     * @param etag Källans ETag för svaret, eller null om källan inte har någon.
+     * @param notModified Sant om källan svarade att dagen inte har ändrats (HTTP 304).
+     */
+    record Response(String body, String etag, boolean notModified) {}
+
+    /**
+     * En källa som hämtar från elprisetjustnu.se.
+     */
+    static PriceSource http() {
+        return http(HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).build(), DEFAULT_BASE_URL);
+    }
+
+    /**
+     * En källa som hämtar från en server med samma URL-mönster som elprisetjustnu.se,
+     * dvs. {@code <baseUrl>/yyyy/MM-dd_SEx.json}. Villkorliga hämtningar skickar ETag:en
+     * i If-None-Match, så en oförändrad dag kostar bara ett tomt 304-svar.
+     */
+    static PriceSource http(HttpClient httpClient, String baseUrl) {
+        DateTimeFormatter urlDateFormatter = DateTimeFormatter.ofPattern("yyyy/MM-dd");
+        return new PriceSource() {
+            @Override
+            public String fetch(LocalDate datum, ElpriserAPI.Prisklass prisklass) throws IOException, InterruptedException {
+                return fetch(datum, prisklass, null).body();
+            }
+
+            @Override
+            public Response fetch(LocalDate datum, ElpriserAPI.Prisklass prisklass, String etag) throws IOException, InterruptedException {
+                String url = String.format("%s/%s_%s.json", baseUrl, datum.format(urlDateFormatter), prisklass.name());
+                HttpRequest.Builder request = HttpRequest.newBuilder().uri(URI.create(url)).GET();
+                if (etag != null) {
+                    request.header("If-None-Match", etag);
+                }
+                HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+
+                if (response.statusCode() == 304) {
+                    return new Response(null, etag, true);
+                }
+                // Om sidan inte finns (t.ex. priser för morgondagen) returneras 404
+                if (response.statusCode() == 404) {
+                    return new Response(null, null, false);
+                }
+                if (response.statusCode() != 200) {
+                    throw new IOException("Misslyckades med att hämta priser. Statuskod: " + response.statusCode());
+                }
+                return new Response(response.body(), response.headers().firstValue("ETag").orElse(null), false);
+            }
+        };
+    }
+}
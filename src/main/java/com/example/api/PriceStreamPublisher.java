@@ -0,0 +1,144 @@
+package com.example.api;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * En {@link Flow.Publisher} som strömmar priserna för en period, dag för dag. Varje
+ * prenumerant får en egen läsposition och hämtar nästa dag först när den har begärt fler
+ * priser (mottryck). Leveransen sker på virtuella trådar, så att en långsam hämtning aldrig
+ * blockerar den tråd som anropar {@link Flow.Subscription#request(long)}. Dagar utan priser
+ * hoppas över, men ett fel vid hämtningen avslutar strömmen med {@code onError}.
+ * Skapas via {@link ElpriserAPI#streamPriser(LocalDate, LocalDate, ElpriserAPI.Prisklass)}.
+ */
+final class PriceStreamPublisher implements Flow.Publisher<ElpriserAPI.Elpris> {
+
+    // Varje leveransomgång körs på en egen virtuell tråd
+    private static final Executor VIRTUAL_THREADS = command -> Thread.ofVirtual().start(command);
+
+    private final ElpriserAPI api;
+    private final LocalDate från;
+    private final LocalDate till;
+    private final ElpriserAPI.Prisklass prisklass;
+
+    PriceStreamPublisher(ElpriserAPI api, LocalDate från, LocalDate till, ElpriserAPI.Prisklass prisklass) {
+        this.api = api;
+        this.från = från;
+        this.till = till;
+        this.prisklass = prisklass;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ElpriserAPI.Elpris> subscriber) {
+        Objects.requireNonNull(subscriber);
+        subscriber.onSubscribe(new PriceSubscription(subscriber));
+    }
+
+    private final class PriceSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super ElpriserAPI.Elpris> subscriber;
+        private final AtomicLong efterfrågan = new AtomicLong();
+        // Antal väntande leveransomgångar, bara den som ökar från 0 startar en ny
+        private final AtomicInteger arbete = new AtomicInteger();
+        private final AtomicBoolean avslutad = new AtomicBoolean();
+        // Fel från request() skickas av drain(), så att alla signaler kommer från samma tråd i taget
+        private final AtomicReference<Throwable> ogiltigRequest = new AtomicReference<>();
+
+        // Används bara inne i drain(), som aldrig körs av två trådar samtidigt
+        private LocalDate nästaDag = från;
+        private List<ElpriserAPI.Elpris> dag = List.of();
+        private int position;
+
+        PriceSubscription(Flow.Subscriber<? super ElpriserAPI.Elpris> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                ogiltigRequest.compareAndSet(null, new IllegalArgumentException("request måste vara positivt, var " + n));
+                schedule();
+                return;
+            }
+            // Lägg till efterfrågan utan att slå över Long.MAX_VALUE
+            efterfrågan.accumulateAndGet(n, (gammal, ny) -> gammal + ny < 0 ? Long.MAX_VALUE : gammal + ny);
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            avslutad.set(true);
+        }
+
+        private void schedule() {
+            if (arbete.getAndIncrement() == 0) {
+                VIRTUAL_THREADS.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            int omgångar = 1;
+            do {
+                try {
+                    emit();
+                } catch (RuntimeException e) {
+                    fel(e);
+                }
+                omgångar = arbete.addAndGet(-omgångar);
+            } while (omgångar != 0);
+        }
+
+        private void emit() {
+            while (!avslutad.get() && efterfrågan.get() > 0 && ogiltigRequest.get() == null) {
+                if (position == dag.size()) {
+                    if (nästaDag.isAfter(till)) {
+                        if (avslutad.compareAndSet(false, true)) {
+                            subscriber.onComplete();
+                        }
+                        return;
+                    }
+                    // Bara en dag åt gången hålls i minnet. En tom dag hoppas över, ett fel avslutar strömmen
+                    try {
+                        dag = api.hämtaUtanMinnesCache(nästaDag, prisklass);
+                    } catch (IOException e) {
+                        fel(e);
+                        return;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        fel(e);
+                        return;
+                    }
+                    position = 0;
+                    nästaDag = nästaDag.plusDays(1);
+                    continue;
+                }
+                subscriber.onNext(dag.get(position++));
+                if (efterfrågan.get() != Long.MAX_VALUE) {
+                    efterfrågan.decrementAndGet();
+                }
+            }
+            if (ogiltigRequest.get() != null) {
+                fel(ogiltigRequest.get());
+                return;
+            }
+            // En tom period avslutas direkt, även om ingen efterfrågan finns kvar
+            if (!avslutad.get() && position == dag.size() && nästaDag.isAfter(till) && avslutad.compareAndSet(false, true)) {
+                subscriber.onComplete();
+            }
+        }
+
+        private void fel(Throwable e) {
+            if (avslutad.compareAndSet(false, true)) {
+                subscriber.onError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.api;
+
+import java.util.Arrays;
+
+/**
+ * Räknar om en prisserie mellan kvarts- och timupplösning.
+ * <ul>
+ *   <li>Nedsampling (t.ex. kvart till timme) slår ihop intervall som börjar i samma lokala
+ *       timme. Priset blir medelvärdet, eller det förbrukningsviktade medelvärdet om
+ *       förbrukningen per intervall är känd.</li>
+ *   <li>Uppsampling (timme till kvart) delar varje intervall i lika långa delar med samma pris.</li>
+ * </ul>
+ * Intervall som redan har målupplösningen lämnas som de är, så en serie med blandad
+ * upplösning (t.ex. en dag per timme och nästa per kvart) blir enhetlig.
+ */
+public final class Resampler {
+
+    private Resampler() {
+    }
+
+    /**
+     * Räknar om serien till given upplösning med vanliga medelvärden.
+     */
+    public static PriceSeries resample(PriceSeries serie, Resolution resolution) {
+        return resample(serie, resolution, null);
+    }
+
+    /**
+     * Räknar om serien till given upplösning. Vid nedsampling viktas priserna med
+     * förbrukningen (kWh per intervall i originalserien) om den anges.
+     *
+     * @param consumption Förbrukning per intervall, samma längd som serien, eller null.
+     */
+    public static PriceSeries resample(PriceSeries serie, Resolution resolution, double[] consumption) {
+        if (consumption != null && consumption.length != serie.size()) {
+            throw new IllegalArgumentException("Förbrukningen måste ha ett värde per intervall");
+        }
+        if (hasResolution(serie, resolution)) {
+            return serie;
+        }
+        Builder builder = new Builder(serie.size() * 4);
+        int step = resolution.seconds();
+        int i = 0;
+        while (i < serie.size()) {
+            long length = serie.durationSeconds(i);
+            if (length > step && length % step == 0) {
+                // Uppsampling: dela intervallet i lika delar med samma pris
+                int delar = (int) (length / step);
+                for (int del = 0; del < delar; del++) {
+                    long start = serie.startEpochSecond(i) + (long) del * step;
+                    int slutOffset = del == delar - 1 ? serie.endOffsetSeconds(i) : serie.startOffsetSeconds(i);
+                    builder.add(serie.sekPerKWh(i), serie.eurPerKWh(i), serie.exr(i),
+                            start, start + step, serie.startOffsetSeconds(i), slutOffset);
+                }
+                i++;
+                continue;
+            }
+            // Nedsampling: slå ihop alla intervall som börjar i samma lokala block. Offseten ingår,
+            // annars blir de två timmarna 02-03 när sommartiden slutar en enda timme
+            long block = localBlock(serie, i, step);
+            int offset = serie.startOffsetSeconds(i);
+            int första = i;
+            double sek = 0;
+            double eur = 0;
+            double exr = 0;
+            double vikt = 0;
+            while (i < serie.size() && localBlock(serie, i, step) == block
+                    && serie.startOffsetSeconds(i) == offset && serie.durationSeconds(i) <= step) {
+                double w = consumption == null ? 1 : consumption[i];
+                sek += consumption == null ? serie.sekPerKWh(i) : serie.sekPerKWh(i) * w;
+                eur += consumption == null ? serie.eurPerKWh(i) : serie.eurPerKWh(i) * w;
+                exr += consumption == null ? serie.exr(i) : serie.exr(i) * w;
+                vikt += w;
+                i++;
+            }
+            if (i == första) {
+                // Ett intervall som inte går att dela jämnt, behåll det som det är
+                i++;
+                builder.add(serie.sekPerKWh(första), serie.eurPerKWh(första), serie.exr(första),
+                        serie.startEpochSecond(första), serie.endEpochSecond(första),
+                        serie.startOffsetSeconds(första), serie.endOffsetSeconds(första));
+                continue;
+            }
+            int sista = i - 1;
+            if (vikt == 0) {
+                // Ingen förbrukning alls i blocket, använd vanligt medelvärde
+                sek = 0;
+                eur = 0;
+                exr = 0;
+                for (int j = första; j <= sista; j++) {
+                    sek += serie.sekPerKWh(j);
+                    eur += serie.eurPerKWh(j);
+                    exr += serie.exr(j);
+                }
+                vikt = sista - första + 1;
+            }
+            builder.add(sek / vikt, eur / vikt, exr / vikt,
+                    serie.startEpochSecond(första), serie.endEpochSecond(sista),
+                    serie.startOffsetSeconds(första), serie.endOffsetSeconds(sista));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Sant om alla intervall i serien redan har den givna längden.
+     */
+    public static boolean hasResolution(PriceSeries serie, Resolution resolution) {
+        for (int i = 0; i < serie.size(); i++) {
+            if (serie.durationSeconds(i) != resolution.seconds()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Numret på det lokala tidsblocket (t.ex. timmen) som intervallet börjar i
+    private static long localBlock(PriceSeries serie, int index, int step) {
+        return Math.floorDiv(serie.startEpochSecond(index) + serie.startOffsetSeconds(index), step);
+    }
+
+    // Bygger upp kolumnerna för en ny serie rad för rad
+    private static final class Builder {
+        private double[] sek;
+        private double[] eur;
+        private double[] exr;
+        private long[] start;
+        private long[] end;
+        private int[] startOffsets;
+        private int[] endOffsets;
+        private int size;
+
+        Builder(int capacity) {
+            capacity = Math.max(capacity, 4);
+            sek = new double[capacity];
+            eur = new double[capacity];
+            exr = new double[capacity];
+            start = new long[capacity];
+            end = new long[capacity];
+            startOffsets = new int[capacity];
+            endOffsets = new int[capacity];
+        }
+
+        void add(double s, double e, double x, long from, long to, int fromOffset, int toOffset) {
+            if (size == sek.length) {
+                int capacity = size * 2;
+                sek = Arrays.copyOf(sek, capacity);
+                eur = Arrays.copyOf(eur, capacity);
+                exr = Arrays.copyOf(exr, capacity);
+                start = Arrays.copyOf(start, capacity);
+                end = Arrays.copyOf(end, capacity);
+                startOffsets = Arrays.copyOf(startOffsets, capacity);
+                endOffsets = Arrays.copyOf(endOffsets, capacity);
+            }
+            sek[size] = s;
+            eur[size] = e;
+            exr[size] = x;
+            start[size] = from;
+            end[size] = to;
+            startOffsets[size] = fromOffset;
+            endOffsets[size] = toOffset;
+            size++;
+        }
+
+        PriceSeries build() {
+            return new PriceSeries(
+                    Arrays.copyOf(sek, size), Arrays.copyOf(eur, size), Arrays.copyOf(exr, size),
+                    Arrays.copyOf(start, size), Arrays.copyOf(end, size),
+                    Arrays.copyOf(startOffsets, size), Arrays.copyOf(endOffsets, size), null);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.api;
+
+/**
+ * Tidsupplösning för en prisserie. Sedan hösten 2025 publiceras priser per kvart, äldre
+ * dagar per timme; {@link Resampler} räknar om mellan dem.
+ */
+public enum Resolution {
+    QUARTER_HOUR(15 * 60),
+    HOUR(60 * 60);
+
+    private final int seconds;
+
+    Resolution(int seconds) {
+        this.seconds = seconds;
+    }
+
+    /**
+     * Intervallens längd i sekunder.
+     */
+    public int seconds() {
+        return seconds;
+    }
+}
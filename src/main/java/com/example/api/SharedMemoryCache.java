@@ -0,0 +1,253 @@
+package com.example.api;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * En cache i en minnesmappad fil som delas av alla processer (JVM:er) på samma dator.
+ * Den ligger mellan minnes-cachen och disk-cachen/nätverket i {@link ElpriserAPI}, så att
+ * en dag som en process har hämtat genast finns hos alla andra.
+ * <p>
+ * Filen består av ett huvud, en hashtabell med fast antal platser och ett dataområde där
+ * posterna (nyckel + {@link PriceCodec}-bytes) läggs efter varandra. En nyckel som skrivs
+ * igen får en ny post och platsen pekar om. När tabellen eller dataområdet är fullt töms
+ * hela cachen och fylls på igen, den är bara en genväg och allt finns kvar på disk.
+ * <p>
+ * Läsningar tar ett delat fillås och skrivningar ett exklusivt, så flera processer kan
+ * använda filen samtidigt. Inom en JVM kan samma fil inte låsas två gånger, därför går alla
+ * instanser för samma fil även via ett gemensamt lås i minnet.
+ * <p>
+ * Filen kan vara skriven av en annan version eller vara trasig, så huvudet och varje plats
+ * kontrolleras mot filens storlek innan de används. Ett ogiltigt huvud ger en tom cache och
+ * en ogiltig plats räknas som att nyckeln saknas.
+ */
+public final class SharedMemoryCache implements AutoCloseable {
+
+    private static final int MAGIC = 0x454C4D31; // "ELM1"
+    private static final int HEADER = 64;
+    private static final int SLOT = 24;
+    private static final int SLOTS = 16384;
+    private static final long DEFAULT_CAPACITY = 64L * 1024 * 1024;
+    private static final long MIN_CAPACITY = HEADER + (long) SLOTS * SLOT + 4096;
+
+    // Positioner i huvudet
+    private static final int POS_MAGIC = 0;
+    private static final int POS_SLOTS = 4;
+    private static final int POS_WRITE = 8;
+
+    // Ett lås per fil för alla instanser i den här JVM:en
+    private static final Map<Path, Object> LÅS = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final long capacity;
+    private final Object lås;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int slots;
+    private long dataStart;
+
+    /**
+     * En delad cache i den givna filen med standardstorleken (64 MB). Filen skapas och
+     * mappas först när cachen används.
+     */
+    public SharedMemoryCache(Path file) {
+        this(file, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Filens storlek i byte om den inte redan finns. En befintlig fil behåller sin storlek.
+     */
+    public SharedMemoryCache(Path file, long capacity) {
+        if (capacity < MIN_CAPACITY || capacity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Ogiltig storlek på delad cache: " + capacity);
+        }
+        this.file = file.toAbsolutePath().normalize();
+        this.capacity = capacity;
+        this.lås = LÅS.computeIfAbsent(this.file, p -> new Object());
+    }
+
+    /**
+     * Hämtar bytes för en nyckel, eller null om nyckeln inte finns.
+     */
+    public byte[] get(String key) throws IOException {
+        byte[] nyckel = key.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(nyckel);
+        synchronized (lås) {
+            open();
+            FileLock fillås = channel.lock(0, Long.MAX_VALUE, true);
+            try {
+                int slot = find(hash, nyckel);
+                if (slot < 0 || buffer.getLong(slotPos(slot)) == 0) {
+                    return null;
+                }
+                long post = buffer.getLong(slotPos(slot) + 8);
+                int längd = buffer.getInt(slotPos(slot) + 16);
+                if (!giltigPost(post, nyckel.length, längd)) {
+                    return null;
+                }
+                byte[] data = new byte[längd];
+                buffer.get((int) (post + 2 + nyckel.length), data);
+                return data;
+            } finally {
+                fillås.release();
+            }
+        }
+    }
+
+    /**
+     * Lägger till eller ersätter bytes för en nyckel. Är cachen full töms den först.
+     */
+    public void put(String key, byte[] data) throws IOException {
+        byte[] nyckel = key.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(nyckel);
+        long storlek = 2L + nyckel.length + data.length;
+        synchronized (lås) {
+            open();
+            if (dataStart + storlek > buffer.capacity()) {
+                return; // Får aldrig plats, hoppa över
+            }
+            FileLock fillås = channel.lock();
+            try {
+                long skrivPos = buffer.getLong(POS_WRITE);
+                int slot = find(hash, nyckel);
+                if (slot < 0 || skrivPos < dataStart || skrivPos + storlek > buffer.capacity()) {
+                    clear();
+                    skrivPos = dataStart;
+                    slot = find(hash, nyckel);
+                }
+                // Först posten, sedan platsen som pekar på den
+                buffer.putShort((int) skrivPos, (short) nyckel.length);
+                buffer.put((int) skrivPos + 2, nyckel);
+                buffer.put((int) (skrivPos + 2 + nyckel.length), data);
+                buffer.putLong(slotPos(slot) + 8, skrivPos);
+                buffer.putInt(slotPos(slot) + 16, data.length);
+                buffer.putLong(slotPos(slot), hash);
+                buffer.putLong(POS_WRITE, skrivPos + storlek);
+            } finally {
+                fillås.release();
+            }
+        }
+    }
+
+    /**
+     * Släpper filen. Mappningen tas bort av skräpsamlaren när bufferten inte längre används.
+     * Används cachen igen efteråt öppnas filen på nytt.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lås) {
+            buffer = null;
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    // Öppnar och mappar filen första gången, och skriver huvudet om filen är ny
+    private void open() throws IOException {
+        if (buffer != null) {
+            return;
+        }
+        Files.createDirectories(file.getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            FileLock fillås = channel.lock();
+            try {
+                // En för liten fil kan inte vara en giltig cache, den växer då till capacity
+                long size = channel.size();
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size >= MIN_CAPACITY ? size : capacity);
+                if (!giltigtHuvud()) {
+                    buffer.putInt(POS_SLOTS, SLOTS);
+                    slots = SLOTS;
+                    dataStart = HEADER + (long) SLOTS * SLOT;
+                    clear();
+                    buffer.putInt(POS_MAGIC, MAGIC);
+                }
+            } finally {
+                fillås.release();
+            }
+        } catch (IOException | RuntimeException e) {
+            buffer = null;
+            channel.close();
+            channel = null;
+            throw e;
+        }
+        slots = buffer.getInt(POS_SLOTS);
+        dataStart = HEADER + (long) slots * SLOT;
+    }
+
+    // Sant om huvudet är vårt och tabellen och skrivpositionen ryms i filen
+    private boolean giltigtHuvud() {
+        if (buffer.getInt(POS_MAGIC) != MAGIC) {
+            return false;
+        }
+        int antal = buffer.getInt(POS_SLOTS);
+        long start = HEADER + (long) antal * SLOT;
+        long skrivPos = buffer.getLong(POS_WRITE);
+        return antal > 0 && start < buffer.capacity() && skrivPos >= start && skrivPos <= buffer.capacity();
+    }
+
+    // Sant om en post med den nyckel- och datalängden ryms i dataområdet
+    private boolean giltigPost(long post, int nyckelLängd, long dataLängd) {
+        return post >= dataStart && dataLängd >= 0 && post + 2 + nyckelLängd + dataLängd <= buffer.capacity();
+    }
+
+    // Tömmer tabellen, posterna i dataområdet skrivs över efter hand
+    private void clear() {
+        for (int i = 0; i < slots; i++) {
+            buffer.putLong(slotPos(i), 0);
+        }
+        buffer.putLong(POS_WRITE, dataStart);
+    }
+
+    // Platsen för nyckeln, eller den tomma plats där den ska in. -1 om tabellen är full.
+    private int find(long hash, byte[] nyckel) {
+        int start = (int) Math.floorMod(hash, (long) slots);
+        for (int i = 0; i < slots; i++) {
+            int slot = (start + i) % slots;
+            long slotHash = buffer.getLong(slotPos(slot));
+            if (slotHash == 0) {
+                return slot;
+            }
+            if (slotHash == hash && sameKey(buffer.getLong(slotPos(slot) + 8), nyckel)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private boolean sameKey(long post, byte[] nyckel) {
+        if (!giltigPost(post, nyckel.length, 0) || buffer.getShort((int) post) != nyckel.length) {
+            return false;
+        }
+        for (int i = 0; i < nyckel.length; i++) {
+            if (buffer.get((int) post + 2 + i) != nyckel[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int slotPos(int slot) {
+        return HEADER + slot * SLOT;
+    }
+
+    // FNV-1a, 0 betyder tom plats och används aldrig
+    private static long hash(byte[] nyckel) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : nyckel) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h == 0 ? 1 : h;
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.api;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ett index med en {@link DailySummary} per dag och elprisområde. Indexet hålls i minnet
+ * och kan dessutom sparas i en binär fil där varje sammanfattning är en post med fast
+ * storlek som läggs till sist i filen. Vid inläsning vinner den senaste posten för en dag.
+ * <p>
+ * En fil som slutar mitt i en post (t.ex. efter en krasch under skrivning) eller som
+ * innehåller en ogiltig post läses fram till den sista hela, giltiga posten och kortas
+ * sedan av där, så att nya poster hamnar efter dem. En fil med okänd version börjar om.
+ */
+public final class SummaryIndex {
+
+    // Filformatets version, skrivs först i filen
+    private static final int VERSION = 1;
+    private static final int HEADER = 4;
+    // datum, prisklass, antal, min/max/medel, billigaste/dyraste timme och tre fönster
+    static final int RECORD = 4 + 1 + 2 + 3 * 8 + 2 * 8 + 3 * (8 + 8);
+    // Datum utanför det här spannet kan inte komma från API:et och betyder en trasig post
+    private static final long MIN_EPOCH_DAY = LocalDate.of(2000, 1, 1).toEpochDay();
+    private static final long MAX_EPOCH_DAY = LocalDate.of(2200, 1, 1).toEpochDay();
+
+    private final Path file;
+    private final Map<String, DailySummary> summaries = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    /**
+     * Skapar ett index som bara finns i minnet.
+     */
+    public SummaryIndex() {
+        this(null);
+    }
+
+    /**
+     * Skapar ett index som läses från och sparas till den givna filen.
+     * @param file Filen för indexet, eller null för att bara hålla det i minnet.
+     */
+    public SummaryIndex(Path file) {
+        this.file = file;
+        this.loaded = file == null;
+    }
+
+    /**
+     * Hämtar sammanfattningen för en dag, eller null om den inte finns i indexet.
+     */
+    public DailySummary get(LocalDate datum, ElpriserAPI.Prisklass prisklass) {
+        ensureLoaded();
+        return summaries.get(key(datum, prisklass));
+    }
+
+    /**
+     * Returnerar alla sammanfattningar i indexet för perioden (inklusive båda datumen),
+     * sorterade på datum. Dagar som saknas i indexet hoppas över.
+     */
+    public List<DailySummary> range(LocalDate från, LocalDate till, ElpriserAPI.Prisklass prisklass) {
+        ensureLoaded();
+        List<DailySummary> result = new ArrayList<>();
+        for (LocalDate datum = från; !datum.isAfter(till); datum = datum.plusDays(1)) {
+            DailySummary summary = summaries.get(key(datum, prisklass));
+            if (summary != null) {
+                result.add(summary);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Lägger till (eller ersätter) en sammanfattning.
+     * @param persist Om true skrivs sammanfattningen även till filen.
+     */
+    public void put(DailySummary summary, boolean persist) {
+        ensureLoaded();
+        summaries.put(key(summary.datum(), summary.prisklass()), summary);
+        if (persist && file != null) {
+            append(summary);
+        }
+    }
+
+    public int size() {
+        ensureLoaded();
+        return summaries.size();
+    }
+
+    // --- Privata hjälpmetoder ---
+
+    private static String key(LocalDate datum, ElpriserAPI.Prisklass prisklass) {
+        return datum + "_" + prisklass.name();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            if (Files.exists(file)) {
+                load();
+            }
+            loaded = true;
+        }
+    }
+
+    // Läser alla hela, giltiga poster och kortar av filen efter den sista av dem
+    private void load() {
+        long giltig = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != VERSION) {
+                System.err.println("Okänd version av sammanfattningsindex " + file + ", börjar om");
+            } else {
+                giltig = HEADER;
+                byte[] post = new byte[RECORD];
+                while (true) {
+                    int lästa = in.readNBytes(post, 0, RECORD);
+                    if (lästa == 0) {
+                        break;
+                    }
+                    if (lästa < RECORD) {
+                        System.err.println("Sammanfattningsindex " + file + " slutar mitt i en post");
+                        break;
+                    }
+                    DailySummary summary = read(ByteBuffer.wrap(post));
+                    if (summary == null) {
+                        System.err.println("Ogiltig post i sammanfattningsindex " + file + " efter byte " + giltig);
+                        break;
+                    }
+                    summaries.put(key(summary.datum(), summary.prisklass()), summary);
+                    giltig += RECORD;
+                }
+            }
+        } catch (EOFException e) {
+            // Filen är kortare än huvudet, den börjar om
+        } catch (IOException e) {
+            System.err.println("Kunde inte läsa sammanfattningsindex " + file + ": " + e.getMessage());
+            return; // Rör inte en fil vi inte kunde läsa
+        }
+        truncate(giltig);
+    }
+
+    private void truncate(long längd) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            if (channel.size() > längd) {
+                channel.truncate(längd);
+            }
+        } catch (IOException e) {
+            System.err.println("Kunde inte korta av sammanfattningsindex " + file + ": " + e.getMessage());
+        }
+    }
+
+    private synchronized void append(DailySummary summary) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            boolean ny = !Files.exists(file) || Files.size(file) == 0;
+            try (OutputStream stream = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+                if (ny) {
+                    out.writeInt(VERSION);
+                }
+                write(out, summary);
+            }
+        } catch (IOException e) {
+            System.err.println("Kunde inte spara sammanfattning för " + summary.datum() + ": " + e.getMessage());
+        }
+    }
+
+    private static void write(DataOutputStream out, DailySummary summary) throws IOException {
+        out.writeInt((int) summary.datum().toEpochDay());
+        out.writeByte(summary.prisklass().ordinal());
+        out.writeShort(summary.antalIntervall());
+        out.writeDouble(summary.min());
+        out.writeDouble(summary.max());
+        out.writeDouble(summary.medel());
+        out.writeLong(summary.billigasteTimmeStart());
+        out.writeLong(summary.dyrasteTimmeStart());
+        for (DailySummary.Window window : List.of(summary.billigaste2h(), summary.billigaste4h(), summary.billigaste8h())) {
+            out.writeLong(window.startEpochSecond());
+            out.writeDouble(window.medel());
+        }
+    }
+
+    // En post, eller null om den inte är giltig (okänt elprisområde, orimligt datum eller antal)
+    private static DailySummary read(ByteBuffer post) {
+        int epochDay = post.getInt();
+        int ordinal = post.get();
+        int antal = post.getShort();
+        if (ordinal < 0 || ordinal >= ElpriserAPI.Prisklass.values().length || antal <= 0
+                || epochDay < MIN_EPOCH_DAY || epochDay > MAX_EPOCH_DAY) {
+            return null;
+        }
+        double min = post.getDouble();
+        double max = post.getDouble();
+        double medel = post.getDouble();
+        long billigaste = post.getLong();
+        long dyraste = post.getLong();
+        DailySummary.Window[] windows = new DailySummary.Window[3];
+        for (int i = 0; i < windows.length; i++) {
+            windows[i] = new DailySummary.Window(post.getLong(), post.getDouble());
+        }
+        return new DailySummary(LocalDate.ofEpochDay(epochDay), ElpriserAPI.Prisklass.values()[ordinal], antal,
+                min, max, medel, billigaste, dyraste, windows[0], windows[1], windows[2]);
+    }
+}
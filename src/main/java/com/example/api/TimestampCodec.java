@@ -0,0 +1,225 @@
+package com.example.api;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Snabb kodare för tidsstämplarna i API:ets svar, t.ex. "2025-09-04T00:00:00+02:00".
+ * Formatet är alltid detsamma, så vi kan läsa siffrorna direkt i stället för att gå via
+ * {@link ZonedDateTime#parse(CharSequence)} och en generell DateTimeFormatter.
+ * Klassen har även en förberäknad tabell över Europe/Stockholms sommartidsövergångar
+ * samt cachade etiketter ("HH" och "HH:mm") för utskrifter.
+ */
+public final class TimestampCodec {
+
+    public static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+
+    // Tabellen täcker dessa år, utanför faller vi tillbaka på ZoneRules
+    private static final int FIRST_YEAR = 2000;
+    private static final int LAST_YEAR = 2100;
+
+    // Övergångarna som epoch-sekunder och offset (i sekunder) som gäller från och med övergången
+    private static final long[] TRANSITIONS;
+    private static final int[] OFFSETS_AFTER;
+    private static final int OFFSET_BEFORE_TABLE;
+    private static final long TABLE_START;
+    private static final long TABLE_END;
+
+    // Cachade etiketter, index är timme respektive minut på dygnet
+    private static final String[] HOUR_LABELS = new String[24];
+    private static final String[] HOUR_MINUTE_LABELS = new String[24 * 60];
+
+    static {
+        ZoneRules rules = STOCKHOLM.getRules();
+        TABLE_START = LocalDateTime.of(FIRST_YEAR, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        TABLE_END = LocalDateTime.of(LAST_YEAR + 1, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        OFFSET_BEFORE_TABLE = rules.getOffset(Instant.ofEpochSecond(TABLE_START)).getTotalSeconds();
+
+        List<ZoneOffsetTransition> transitions = new ArrayList<>();
+        ZoneOffsetTransition next = rules.nextTransition(Instant.ofEpochSecond(TABLE_START));
+        while (next != null && next.toEpochSecond() < TABLE_END) {
+            transitions.add(next);
+            next = rules.nextTransition(next.getInstant());
+        }
+        TRANSITIONS = new long[transitions.size()];
+        OFFSETS_AFTER = new int[transitions.size()];
+        for (int i = 0; i < transitions.size(); i++) {
+            TRANSITIONS[i] = transitions.get(i).toEpochSecond();
+            OFFSETS_AFTER[i] = transitions.get(i).getOffsetAfter().getTotalSeconds();
+        }
+
+        for (int hour = 0; hour < 24; hour++) {
+            HOUR_LABELS[hour] = twoDigits(hour);
+            for (int minute = 0; minute < 60; minute++) {
+                HOUR_MINUTE_LABELS[hour * 60 + minute] = twoDigits(hour) + ":" + twoDigits(minute);
+            }
+        }
+    }
+
+    private TimestampCodec() {
+    }
+
+    /**
+     * Tolkar en tidsstämpel i API:ets format till en {@link ZonedDateTime} med samma
+     * fasta offset som {@code ZonedDateTime.parse} skulle ge. Andra format (t.ex. med
+     * sekundbråk eller "Z") lämnas över till {@code ZonedDateTime.parse}.
+     */
+    public static ZonedDateTime parse(CharSequence text) {
+        if (!isFixedFormat(text)) {
+            return ZonedDateTime.parse(text);
+        }
+        LocalDateTime local = LocalDateTime.of(
+                digits(text, 0, 4), digits(text, 5, 2), digits(text, 8, 2),
+                digits(text, 11, 2), digits(text, 14, 2), digits(text, 17, 2));
+        return ZonedDateTime.of(local, ZoneOffset.ofTotalSeconds(offsetSeconds(text)));
+    }
+
+    /**
+     * Tolkar en tidsstämpel i API:ets format direkt till epoch-sekunder utan att skapa
+     * några tidsobjekt.
+     */
+    public static long toEpochSecond(CharSequence text) {
+        if (!isFixedFormat(text)) {
+            return ZonedDateTime.parse(text).toEpochSecond();
+        }
+        long epochDay = epochDay(digits(text, 0, 4), digits(text, 5, 2), digits(text, 8, 2));
+        long secondOfDay = digits(text, 11, 2) * 3600L + digits(text, 14, 2) * 60L + digits(text, 17, 2);
+        return epochDay * 86400 + secondOfDay - offsetSeconds(text);
+    }
+
+    /**
+     * Returnerar Stockholms UTC-offset i sekunder vid given tidpunkt, via binärsökning i
+     * den förberäknade övergångstabellen.
+     */
+    public static int stockholmOffsetSeconds(long epochSecond) {
+        if (epochSecond < TABLE_START || epochSecond >= TABLE_END) {
+            return STOCKHOLM.getRules().getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+        }
+        int low = 0;
+        int high = TRANSITIONS.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (TRANSITIONS[mid] <= epochSecond) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found < 0 ? OFFSET_BEFORE_TABLE : OFFSETS_AFTER[found];
+    }
+
+    /**
+     * Skapar en {@link ZonedDateTime} med fast offset från epoch-sekunder och offset.
+     */
+    public static ZonedDateTime toZonedDateTime(long epochSecond, int offsetSeconds) {
+        ZoneOffset offset = ZoneOffset.ofTotalSeconds(offsetSeconds);
+        return ZonedDateTime.of(LocalDateTime.ofEpochSecond(epochSecond, 0, offset), offset);
+    }
+
+    /**
+     * Skapar en {@link ZonedDateTime} i Stockholms lokala tid (som fast offset).
+     */
+    public static ZonedDateTime toStockholm(long epochSecond) {
+        return toZonedDateTime(epochSecond, stockholmOffsetSeconds(epochSecond));
+    }
+
+    /**
+     * Etikett "HH" för tidpunktens egen lokala tid, samma som {@code format("HH")}.
+     */
+    public static String hourLabel(ZonedDateTime time) {
+        return HOUR_LABELS[time.getHour()];
+    }
+
+    /**
+     * Etikett "HH:mm" för tidpunktens egen lokala tid, samma som {@code format("HH:mm")}.
+     */
+    public static String hourMinuteLabel(ZonedDateTime time) {
+        return HOUR_MINUTE_LABELS[time.getHour() * 60 + time.getMinute()];
+    }
+
+    /**
+     * Etikett "HH" i Stockholms lokala tid för en epoch-sekund.
+     */
+    public static String hourLabel(long epochSecond) {
+        return HOUR_LABELS[minuteOfDay(epochSecond) / 60];
+    }
+
+    /**
+     * Etikett "HH:mm" i Stockholms lokala tid för en epoch-sekund.
+     */
+    public static String hourMinuteLabel(long epochSecond) {
+        return HOUR_MINUTE_LABELS[minuteOfDay(epochSecond)];
+    }
+
+    private static int minuteOfDay(long epochSecond) {
+        long local = epochSecond + stockholmOffsetSeconds(epochSecond);
+        return (int) (Math.floorMod(local, 86400L) / 60);
+    }
+
+    // --- Privata hjälpmetoder ---
+
+    // Kontrollerar att texten ser ut som "yyyy-MM-ddTHH:mm:ss+hh:mm" (25 tecken)
+    private static boolean isFixedFormat(CharSequence text) {
+        if (text.length() != 25) {
+            return false;
+        }
+        char sign = text.charAt(19);
+        return text.charAt(4) == '-' && text.charAt(7) == '-' && text.charAt(10) == 'T'
+                && text.charAt(13) == ':' && text.charAt(16) == ':'
+                && (sign == '+' || sign == '-') && text.charAt(22) == ':';
+    }
+
+    private static int offsetSeconds(CharSequence text) {
+        int seconds = digits(text, 20, 2) * 3600 + digits(text, 23, 2) * 60;
+        return text.charAt(19) == '-' ? -seconds : seconds;
+    }
+
+    private static int digits(CharSequence text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Ogiltig tidsstämpel: " + text);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // Dagar sedan 1970-01-01 för ett datum i den proleptiska gregorianska kalendern.
+    // Ett datum som inte finns (t.ex. 2025-02-31) ger samma fel som ZonedDateTime.parse.
+    private static long epochDay(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            throw new DateTimeException("Ogiltigt datum: " + year + "-" + month + "-" + day);
+        }
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> Year.isLeap(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static String twoDigits(int value) {
+        return value < 10 ? "0" + value : Integer.toString(value);
+    }
+}
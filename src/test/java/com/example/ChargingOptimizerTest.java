@@ -0,0 +1,145 @@
+package com.example;
+
+import com.example.api.ElpriserAPI;
+import com.example.api.PriceSeries;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ChargingOptimizerTest {
+
+    private static PriceSeries quarters(double[] prices) {
+        ZonedDateTime start = ZonedDateTime.parse("2025-09-04T00:00:00+02:00");
+        List<ElpriserAPI.Elpris> priser = new ArrayList<>();
+        for (int i = 0; i < prices.length; i++) {
+            priser.add(new ElpriserAPI.Elpris(prices[i], prices[i] / 11, 11.0, start.plusMinutes(15L * i), start.plusMinutes(15L * (i + 1))));
+        }
+        return PriceSeries.of(priser);
+    }
+
+    //Checks every start position, earliest wins on ties
+    private static int bruteForce(double[] effective, int slots, int earliest, int latest) {
+        int best = -1;
+        long bestSum = Long.MAX_VALUE;
+        for (int start = Math.max(0, earliest); start <= Math.min(latest, effective.length - slots); start++) {
+            long sum = 0;
+            for (int j = 0; j < slots; j++) {
+                sum += Math.round(effective[start + j] * 1e9);
+            }
+            if (sum < bestSum) {
+                bestSum = sum;
+                best = start;
+            }
+        }
+        return best;
+    }
+
+    @Test
+    void cheapest_matchesBruteForceForManyLengthsAndLimits() {
+        Random random = new Random(7);
+        for (int round = 0; round < 30; round++) {
+            double[] prices = new double[24 + random.nextInt(180)];
+            for (int i = 0; i < prices.length; i++) {
+                prices[i] = random.nextInt(40) / 100.0; //Few distinct prices, so ties are common
+            }
+            ChargingOptimizer optimizer = new ChargingOptimizer(quarters(prices), TariffModel.SPOT_ONLY);
+            //Tables only up to 4 quarters, longer windows take the linear scan
+            ChargingOptimizer fewTables = new ChargingOptimizer(quarters(prices), TariffModel.SPOT_ONLY, 4);
+
+            for (int query = 0; query < 50; query++) {
+                int slots = 1 + random.nextInt(32);
+                int earliest = random.nextInt(prices.length);
+                int latest = earliest + random.nextInt(prices.length);
+                int expected = bruteForce(prices, slots, earliest, latest);
+
+                ChargingOptimizer.Window window = optimizer.cheapest(slots, earliest, latest);
+
+                ChargingOptimizer.Window scanned = fewTables.cheapest(slots, earliest, latest);
+
+                if (expected < 0) {
+                    assertThat(window).isNull();
+                    assertThat(scanned).isNull();
+                } else {
+                    assertThat(window.start()).isEqualTo(expected);
+                    assertThat(window.slots()).isEqualTo(slots);
+                    assertThat(scanned).isEqualTo(window);
+                }
+            }
+        }
+    }
+
+    @Test
+    void tablesBuiltFromSeveralThreads_giveTheSameAnswers() throws Exception {
+        Random random = new Random(11);
+        double[] prices = new double[192];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = random.nextInt(40) / 100.0;
+        }
+        ChargingOptimizer optimizer = new ChargingOptimizer(quarters(prices), TariffModel.SPOT_ONLY);
+
+        //Every thread asks for the same lengths at once, so tables are built concurrently
+        try (ExecutorService pool = Executors.newFixedThreadPool(8)) {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                results.add(pool.submit(() -> {
+                    int[] starts = new int[32];
+                    for (int slots = 1; slots <= 32; slots++) {
+                        starts[slots - 1] = optimizer.cheapest(slots, 10, 150).start();
+                    }
+                    return starts;
+                }));
+            }
+            for (Future<int[]> result : results) {
+                int[] starts = result.get();
+                for (int slots = 1; slots <= 32; slots++) {
+                    assertThat(starts[slots - 1]).isEqualTo(bruteForce(prices, slots, 10, 150));
+                }
+            }
+        }
+    }
+
+    @Test
+    void timeOfUseTariff_movesChargingAwayFromPeakHours() {
+        //Spot is a bit cheaper at 06-10, but the peak network fee makes the night cheaper
+        double[] prices = new double[96];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = i >= 24 && i < 40 ? 0.10 : 0.20;
+        }
+        PriceSeries serie = quarters(prices);
+        TariffModel tariff = new TariffModel.TimeOfUse(0.50, 0.05, 6, 22, 0.439, 0.25);
+
+        ChargingOptimizer spotOnly = new ChargingOptimizer(serie, TariffModel.SPOT_ONLY);
+        ChargingOptimizer withTariff = new ChargingOptimizer(serie, tariff);
+
+        assertThat(spotOnly.cheapest(8).start()).isEqualTo(24);
+        assertThat(withTariff.cheapest(8).start()).isEqualTo(0);
+        assertThat(withTariff.cheapest(8).averagePrice()).isCloseTo((0.20 + 0.05 + 0.439) * 1.25, within(1e-9));
+    }
+
+    @Test
+    void cheapestForEnergy_usesPowerCapToPickWindowLength() {
+        double[] prices = new double[96];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = i >= 80 ? 0.01 : 0.30;
+        }
+        ChargingOptimizer optimizer = new ChargingOptimizer(quarters(prices), TariffModel.SPOT_ONLY);
+
+        //22 kWh at 11 kW is 2 hours, which is 8 quarters
+        ChargingOptimizer.Window window = optimizer.cheapestForEnergy(22, 11, 0, 96);
+
+        assertThat(window.slots()).isEqualTo(8);
+        assertThat(window.start()).isEqualTo(80);
+        assertThat(window.cost(22)).isCloseTo(0.22, within(1e-9));
+        //Must be done by quarter 84, so the best window is the one that ends there with 4 cheap quarters
+        assertThat(optimizer.cheapestForEnergy(22, 11, 0, 84).start()).isEqualTo(76);
+    }
+}
@@ -0,0 +1,289 @@
+package com.example;
+
+import com.example.api.Currency;
+import com.example.api.ElpriserAPI;
+import com.example.api.PriceSeries;
+import com.example.api.Resolution;
+import com.example.api.TimestampCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Random price series checked against simple reference versions of Main's output.
+ * The references are written the slow and obvious way (loops, a stable sort, printf),
+ * so any optimization of the real code that changes a single printed character fails here.
+ * Every case has its own seed, a failure can be rerun with the seed from the test name.
+ */
+class DifferentialTest {
+
+    private static final int SEEDS = 20;
+    //The sizes we see from the API: hours, quarters on normal and DST days, and today + tomorrow
+    private static final int[] SIZES = {24, 92, 96, 100, 192};
+
+    PrintStream originalOut;
+    ByteArrayOutputStream bos;
+
+    @BeforeEach
+    void setup() {
+        originalOut = System.out;
+        bos = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(bos, true, StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    static Stream<Arguments> cases() {
+        return IntStream.range(0, SEEDS).boxed()
+                .flatMap(seed -> IntStream.of(SIZES).mapToObj(size -> Arguments.of(seed * 7919L + size, size)));
+    }
+
+    @ParameterizedTest(name = "seed {0}, {1} intervals")
+    @MethodSource("cases")
+    void chargingWindow_matchesNaiveSlidingWindow(long seed, int size) {
+        List<ElpriserAPI.Elpris> priser = series(seed, size);
+        Random random = new Random(seed);
+        for (int hours : new int[]{2, 4, 8, 1 + random.nextInt(size + 4)}) {
+            bos.reset();
+            Main.printChargingWindow(priser, hours);
+            assertThat(output()).isEqualTo(referenceChargingWindow(priser, hours));
+        }
+    }
+
+    @ParameterizedTest(name = "seed {0}, {1} intervals")
+    @MethodSource("cases")
+    void highestAndLowest_matchNaiveHourGroups(long seed, int size) {
+        List<ElpriserAPI.Elpris> priser = series(seed, size);
+        for (Currency currency : List.of(Currency.SEK, Currency.EUR)) {
+            //Default resolution: 96 quarters are merged four by four, like the old printHighest96
+            bos.reset();
+            Main.printHighest(priser, Main.defaultResolution(priser), currency);
+            Main.printLowest(priser, Main.defaultResolution(priser), currency);
+            List<ElpriserAPI.Elpris> byDefault = size == 96 ? groupsOfFour(priser) : priser;
+            assertThat(output()).isEqualTo(referenceExtreme(byDefault, currency, true) + referenceExtreme(byDefault, currency, false));
+
+            //Asked for hours: every local hour is one group, also on DST days
+            bos.reset();
+            Main.printHighest(priser, Resolution.HOUR, currency);
+            Main.printLowest(priser, Resolution.HOUR, currency);
+            List<ElpriserAPI.Elpris> hourly = localHours(priser);
+            assertThat(output()).isEqualTo(referenceExtreme(hourly, currency, true) + referenceExtreme(hourly, currency, false));
+        }
+    }
+
+    @ParameterizedTest(name = "seed {0}, {1} intervals")
+    @MethodSource("cases")
+    void sortedAndAverage_matchStableSortAndPrintf(long seed, int size) {
+        List<ElpriserAPI.Elpris> priser = series(seed, size);
+        for (Currency currency : List.of(Currency.SEK, Currency.EUR)) {
+            bos.reset();
+            Main.printPricesSorted(priser, currency);
+            Main.printAveragePrices(priser, currency);
+            assertThat(output()).isEqualTo(referenceSorted(priser, currency) + referenceAverage(priser, currency));
+        }
+    }
+
+    @ParameterizedTest(name = "seed {0}, {1} intervals")
+    @MethodSource("cases")
+    void rankedPrices_matchStableSort(long seed, int size) {
+        List<ElpriserAPI.Elpris> priser = series(seed, size);
+        RankedPrices ranked = new RankedPrices(priser);
+        List<ElpriserAPI.Elpris> ascending = new ArrayList<>(priser);
+        ascending.sort(Comparator.comparingDouble(ElpriserAPI.Elpris::sekPerKWh));
+        List<ElpriserAPI.Elpris> descending = new ArrayList<>(priser);
+        descending.sort(Comparator.comparingDouble(ElpriserAPI.Elpris::sekPerKWh).reversed());
+
+        assertThat(ranked.ascending()).containsExactlyElementsOf(ascending);
+        assertThat(ranked.descending()).containsExactlyElementsOf(descending);
+        int k = 1 + new Random(seed).nextInt(size);
+        assertThat(ranked.cheapest(k)).containsExactlyElementsOf(ascending.subList(0, k));
+        assertThat(ranked.mostExpensive(k)).containsExactlyElementsOf(descending.subList(0, k));
+        for (int i = 0; i < size; i++) {
+            assertThat(ranked.rank(i)).isEqualTo(ascending.indexOf(priser.get(i)) + 1);
+        }
+    }
+
+    @ParameterizedTest(name = "seed {0}, {1} intervals")
+    @MethodSource("cases")
+    void constrainedWindows_matchNaiveSearch(long seed, int size) {
+        List<ElpriserAPI.Elpris> priser = series(seed, size);
+        ChargingOptimizer optimizer = new ChargingOptimizer(PriceSeries.of(priser), PriceSeries::sekPerKWh);
+        Random random = new Random(seed);
+        for (int round = 0; round < 50; round++) {
+            int slots = 1 + random.nextInt(12);
+            int earliest = random.nextInt(size);
+            int latest = earliest + random.nextInt(size);
+            ChargingOptimizer.Window window = optimizer.cheapest(slots, earliest, latest);
+            int expected = naiveCheapest(priser, slots, earliest, latest);
+            assertThat(window == null ? -1 : window.start()).as("slots %d, %d..%d", slots, earliest, latest).isEqualTo(expected);
+        }
+    }
+
+    // --- Generators ---
+
+    //A random series of the given size in Stockholm time. Prices have five decimals like the API,
+    //and some series use only a few distinct prices so there are plenty of ties
+    static List<ElpriserAPI.Elpris> series(long seed, int size) {
+        Random random = new Random(seed);
+        LocalDate day = switch (size) {
+            case 92 -> LocalDate.of(2025, 3, 30);
+            case 100 -> LocalDate.of(2025, 10, 26);
+            //A normal day somewhere in May to September
+            default -> LocalDate.of(2025, 5, 1).plusDays(random.nextInt(150));
+        };
+        int minutes = size == 24 ? 60 : 15;
+        double[] palette = random.nextBoolean() ? null : IntStream.range(0, 1 + random.nextInt(4)).mapToDouble(i -> price(random)).toArray();
+        List<ElpriserAPI.Elpris> priser = new ArrayList<>();
+        ZonedDateTime start = day.atStartOfDay(TimestampCodec.STOCKHOLM);
+        for (int i = 0; i < size; i++) {
+            //Step in UTC, so the DST hour is repeated or skipped like in the API
+            ZonedDateTime end = start.plusMinutes(minutes);
+            double exr = 11.0 + random.nextInt(10000) / 10000.0;
+            double sek = palette == null ? price(random) : palette[random.nextInt(palette.length)];
+            double eur = Math.round(sek / exr * 100000) / 100000.0;
+            priser.add(new ElpriserAPI.Elpris(sek, eur, exr, start, end));
+            start = end;
+        }
+        return priser;
+    }
+
+    //Mostly normal prices, sometimes negative, sometimes very high (over 1000 öre)
+    private static double price(Random random) {
+        int kind = random.nextInt(10);
+        long hundredThousandths = switch (kind) {
+            case 0 -> -random.nextInt(50000);
+            case 1 -> 1000000 + random.nextInt(2000000);
+            default -> random.nextInt(300000);
+        };
+        return hundredThousandths / 100000.0;
+    }
+
+    // --- References ---
+
+    //Tries every start and keeps the first one with the lowest exact sum
+    private static int naiveCheapest(List<ElpriserAPI.Elpris> priser, int slots, int earliest, int latest) {
+        int best = -1;
+        long bestSum = Long.MAX_VALUE;
+        for (int start = earliest; start <= latest && start + slots <= priser.size(); start++) {
+            long sum = 0;
+            for (int j = 0; j < slots; j++) {
+                sum += Math.round(priser.get(start + j).sekPerKWh() * 100000);
+            }
+            if (sum < bestSum) {
+                bestSum = sum;
+                best = start;
+            }
+        }
+        return best;
+    }
+
+    private static String referenceChargingWindow(List<ElpriserAPI.Elpris> priser, int hours) {
+        int best = naiveCheapest(priser, hours, 0, priser.size());
+        double average = 0;
+        if (best >= 0) {
+            double sum = 0;
+            for (int j = 0; j < hours; j++) {
+                sum += priser.get(best + j).sekPerKWh();
+            }
+            average = sum / hours;
+        }
+        ZonedDateTime start = priser.get(Math.max(best, 0)).timeStart();
+        return String.format("Påbörja laddning kl %s för %d timmars laddning\nMedelpris för fönster: %s öre",
+                start.format(Main.HOUR_AND_MINUTES), hours, Main.PRICE_FORMAT.format(average * 100));
+    }
+
+    //The old printHighest96/printLowest96: mean of every four quarters by position
+    private static List<ElpriserAPI.Elpris> groupsOfFour(List<ElpriserAPI.Elpris> priser) {
+        List<ElpriserAPI.Elpris> hours = new ArrayList<>();
+        for (int i = 0; i < priser.size(); i += 4) {
+            hours.add(mean(priser.subList(i, i + 4)));
+        }
+        return hours;
+    }
+
+    //Mean per local hour, the two 02-03 hours on the autumn DST day are kept apart by their offset
+    private static List<ElpriserAPI.Elpris> localHours(List<ElpriserAPI.Elpris> priser) {
+        List<ElpriserAPI.Elpris> hours = new ArrayList<>();
+        int first = 0;
+        for (int i = 1; i <= priser.size(); i++) {
+            if (i == priser.size() || !sameHour(priser.get(first).timeStart(), priser.get(i).timeStart())) {
+                hours.add(mean(priser.subList(first, i)));
+                first = i;
+            }
+        }
+        return hours;
+    }
+
+    private static boolean sameHour(ZonedDateTime a, ZonedDateTime b) {
+        return a.truncatedTo(ChronoUnit.HOURS).toLocalDateTime().equals(b.truncatedTo(ChronoUnit.HOURS).toLocalDateTime())
+                && a.getOffset().equals(b.getOffset());
+    }
+
+    private static ElpriserAPI.Elpris mean(List<ElpriserAPI.Elpris> group) {
+        double sek = 0;
+        double eur = 0;
+        double exr = 0;
+        for (ElpriserAPI.Elpris pris : group) {
+            sek += pris.sekPerKWh();
+            eur += pris.eurPerKWh();
+            exr += pris.exr();
+        }
+        return new ElpriserAPI.Elpris(sek / group.size(), eur / group.size(), exr / group.size(),
+                group.getFirst().timeStart(), group.getLast().timeEnd());
+    }
+
+    private static String referenceExtreme(List<ElpriserAPI.Elpris> priser, Currency currency, boolean highest) {
+        ElpriserAPI.Elpris best = priser.getFirst();
+        for (ElpriserAPI.Elpris pris : priser) {
+            if (highest ? currency.price(pris) > currency.price(best) : currency.price(pris) < currency.price(best)) {
+                best = pris;
+            }
+        }
+        return String.format("%s%s-%s %s %s\n", highest ? "Högsta pris: " : "Lägsta pris: ",
+                best.timeStart().format(Main.HOUR_ONLY), best.timeEnd().format(Main.HOUR_ONLY),
+                Main.PRICE_FORMAT.format(currency.price(best) * 100), currency.subunit());
+    }
+
+    private static String referenceSorted(List<ElpriserAPI.Elpris> priser, Currency currency) {
+        List<ElpriserAPI.Elpris> sorted = new ArrayList<>(priser);
+        sorted.sort(Comparator.comparingDouble((ElpriserAPI.Elpris pris) -> currency.price(pris)).reversed());
+        StringBuilder out = new StringBuilder();
+        for (ElpriserAPI.Elpris pris : sorted) {
+            out.append(String.format("%s-%s %s %s\n", pris.timeStart().format(Main.HOUR_ONLY), pris.timeEnd().format(Main.HOUR_ONLY),
+                    Main.PRICE_FORMAT.format(currency.price(pris) * 100), currency.subunit()));
+        }
+        return out.toString();
+    }
+
+    private static String referenceAverage(List<ElpriserAPI.Elpris> priser, Currency currency) {
+        double sum = 0;
+        for (ElpriserAPI.Elpris pris : priser) {
+            sum += currency.price(pris);
+        }
+        return String.format("Medelpris: %s %s\n", Main.PRICE_FORMAT.format(sum / priser.size() * 100), currency.subunit());
+    }
+
+    private String output() {
+        return bos.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -4,9 +4,11 @@ import com.example.api.ElpriserAPI;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.nio.file.Path;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.time.LocalDate;
@@ -21,9 +23,16 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 class MainTest {
     PrintStream originalOut;
     ByteArrayOutputStream bos;
+    String originalCacheDir;
+
+    //Main creates its own ElpriserAPI, which would otherwise write its cache files to the home directory
+    @TempDir
+    Path cacheDir;
 
     @BeforeEach
     void setup() {
+        originalCacheDir = System.getProperty("elpriser.cache.dir");
+        System.setProperty("elpriser.cache.dir", cacheDir.toString());
         originalOut = System.out;
         bos = new ByteArrayOutputStream();
         System.setOut(new PrintStream(bos));
@@ -33,6 +42,11 @@ class MainTest {
     void tearDown() {
         System.setOut(originalOut);
         ElpriserAPI.clearMockResponse();
+        if (originalCacheDir == null) {
+            System.clearProperty("elpriser.cache.dir");
+        } else {
+            System.setProperty("elpriser.cache.dir", originalCacheDir);
+        }
     }
 
     @Test
@@ -441,6 +455,57 @@ class MainTest {
         assertThat(output).contains("Medelpris: " + formatOre(expectedMean) + " öre");
     }
 
+    @Test
+    void forecastFillsInTomorrow_whenNotPublished() {
+        LocalDate today = LocalDate.of(2025, 9, 4);
+        // A week of history plus today, every day the same shape: cheap at night, expensive in the evening
+        for (int daysBack = 7; daysBack >= 0; daysBack--) {
+            LocalDate day = today.minusDays(daysBack);
+            StringBuilder jsonBuilder = new StringBuilder("[");
+            for (int hour = 0; hour < 24; hour++) {
+                if (hour > 0) jsonBuilder.append(",");
+                double price = hour < 6 ? 0.05 : 0.50;
+                jsonBuilder.append(String.format(Locale.US,
+                        """
+                        {"SEK_per_kWh":%.2f,"EUR_per_kWh":0.01,"EXR":10.0,"time_start":"%sT%02d:00:00+02:00","time_end":"%sT%02d:00:00+02:00"}""",
+                        price, day, hour, hour == 23 ? day.plusDays(1) : day, (hour + 1) % 24));
+            }
+            jsonBuilder.append("]");
+            ElpriserAPI.setMockResponseForDate(day, jsonBuilder.toString());
+        }
+
+        Main.main(new String[]{"--zone", "SE3", "--date", "2025-09-04", "--forecast", "--sorted"});
+
+        String output = bos.toString();
+        assertThat(output).contains("prognos");
+        // 24 real hours for today and 24 forecast hours for tomorrow
+        long rows = Arrays.stream(output.split("\n"))
+                .filter(line -> line.matches("^\\d{2}-\\d{2}\\s+\\d+,\\d{2}\\s+öre$"))
+                .count();
+        assertThat(rows).isEqualTo(48);
+    }
+
+    @Test
+    void currencyFlag_printsPricesFromEurColumn() {
+        String mockJson = """
+                [{"SEK_per_kWh":0.50,"EUR_per_kWh":0.045,"EXR":11.0,"time_start":"2025-09-04T00:00:00+02:00","time_end":"2025-09-04T01:00:00+02:00"},
+                 {"SEK_per_kWh":0.10,"EUR_per_kWh":0.009,"EXR":11.0,"time_start":"2025-09-04T01:00:00+02:00","time_end":"2025-09-04T02:00:00+02:00"},
+                 {"SEK_per_kWh":0.80,"EUR_per_kWh":0.072,"EXR":11.0,"time_start":"2025-09-04T02:00:00+02:00","time_end":"2025-09-04T03:00:00+02:00"}]""";
+        ElpriserAPI.setMockResponseForDate(LocalDate.of(2025, 9, 4), mockJson);
+
+        Main.main(new String[]{"--zone", "SE3", "--date", "2025-09-04", "--currency", "EUR"});
+
+        String output = bos.toString();
+        assertThat(output).contains("Lägsta pris: 01-02 0,90 cent");
+        assertThat(output).contains("Högsta pris: 02-03 7,20 cent");
+        assertThat(output).contains("Medelpris: 4,20 cent");
+
+        bos.reset();
+        Main.main(new String[]{"--zone", "SE3", "--date", "2025-09-04", "--currency", "DKK=7.5", "--sorted"});
+
+        assertThat(bos.toString()).startsWith("02-03 54,00 øre\n00-01 33,75 øre\n01-02 6,75 øre\n");
+    }
+
     private String formatOre(double sekPerKWh) {
         double ore = sekPerKWh * 100.0;
         DecimalFormatSymbols symbols = new DecimalFormatSymbols(new Locale("sv", "SE"));
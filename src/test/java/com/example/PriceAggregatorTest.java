@@ -0,0 +1,103 @@
+package com.example;
+
+import com.example.api.ElpriserAPI;
+import com.example.api.PriceSeries;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PriceAggregatorTest {
+
+    private static final ZoneId STOCKHOLM = ZoneId.of("Europe/Stockholm");
+
+    //Hourly prices in Stockholm time, including the DST days with 23 and 25 hours
+    private static PriceSeries randomSeries(long seed, LocalDate from, LocalDate to) {
+        Random random = new Random(seed);
+        List<ElpriserAPI.Elpris> priser = new ArrayList<>();
+        ZonedDateTime end = to.atStartOfDay(STOCKHOLM);
+        for (ZonedDateTime t = from.atStartOfDay(STOCKHOLM); t.isBefore(end); t = t.plusHours(1)) {
+            double sek = Math.round(random.nextDouble() * 200000) / 100000.0;
+            ZonedDateTime start = t.withZoneSameInstant(t.getOffset());
+            priser.add(new ElpriserAPI.Elpris(sek, sek / 11, 11.0, start, start.plusHours(1)));
+        }
+        return PriceSeries.of(priser);
+    }
+
+    //Straightforward single-threaded version of the same statistics
+    private static Map<YearMonth, double[]> reference(PriceSeries serie) {
+        Map<YearMonth, double[]> result = new java.util.TreeMap<>();
+        for (int i = 0; i < serie.size(); i++) {
+            ZonedDateTime start = serie.elpris(i).timeStart();
+            double[] acc = result.computeIfAbsent(YearMonth.from(start), m -> new double[]{0, 0, Double.MAX_VALUE, 0, 0});
+            acc[0]++;
+            acc[1] += serie.sekPerKWh(i);
+            acc[2] = Math.min(acc[2], serie.sekPerKWh(i));
+            if (start.getHour() >= 6 && start.getHour() < 22) {
+                acc[3] += serie.sekPerKWh(i);
+                acc[4]++;
+            }
+        }
+        return result;
+    }
+
+    @Test
+    void parallelResult_matchesSequentialReference() {
+        PriceSeries serie = randomSeries(1, LocalDate.of(2023, 1, 1), LocalDate.of(2025, 1, 1));
+        Map<YearMonth, double[]> expected = reference(serie);
+
+        List<PriceAggregator.MonthStats> stats = new PriceAggregator().aggregate(serie);
+
+        assertThat(stats).hasSize(24);
+        for (PriceAggregator.MonthStats month : stats) {
+            double[] acc = expected.get(month.month());
+            assertThat(month.count()).isEqualTo((int) acc[0]);
+            assertThat(month.mean()).isCloseTo(acc[1] / acc[0], within(1e-9));
+            assertThat(month.min()).isEqualTo(acc[2]);
+            assertThat(month.peakMean()).isCloseTo(acc[3] / acc[4], within(1e-9));
+            assertThat(month.days()).isEqualTo(month.month().lengthOfMonth());
+        }
+    }
+
+    @Test
+    void resultDoesNotDependOnPoolSize() {
+        PriceSeries serie = randomSeries(2, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 7, 1));
+
+        List<PriceAggregator.MonthStats> single;
+        List<PriceAggregator.MonthStats> many;
+        try (ForkJoinPool one = new ForkJoinPool(1); ForkJoinPool eight = new ForkJoinPool(8)) {
+            single = new PriceAggregator(6, 22, 4, one).aggregate(serie);
+            many = new PriceAggregator(6, 22, 4, eight).aggregate(serie);
+        }
+
+        assertThat(many).hasSameSizeAs(single);
+        for (int i = 0; i < single.size(); i++) {
+            assertThat(many.get(i).meanCheapestWindow()).isCloseTo(single.get(i).meanCheapestWindow(), within(1e-9));
+            assertThat(many.get(i).max()).isEqualTo(single.get(i).max());
+        }
+    }
+
+    @Test
+    void severalZones_areAggregatedTogether() {
+        Map<ElpriserAPI.Prisklass, PriceSeries> zones = new EnumMap<>(ElpriserAPI.Prisklass.class);
+        for (ElpriserAPI.Prisklass zone : ElpriserAPI.Prisklass.values()) {
+            zones.put(zone, randomSeries(zone.ordinal(), LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 1)));
+        }
+
+        Map<ElpriserAPI.Prisklass, List<PriceAggregator.MonthStats>> result = new PriceAggregator().aggregate(zones);
+
+        assertThat(result).containsOnlyKeys(ElpriserAPI.Prisklass.values());
+        assertThat(result.values()).allSatisfy(months -> assertThat(months).hasSize(2));
+    }
+}
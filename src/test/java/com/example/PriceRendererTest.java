@@ -0,0 +1,64 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceRendererTest {
+
+    //Typical prices, exact half öre, negative, zero and large values
+    private static List<Double> prices() {
+        List<Double> prices = new ArrayList<>(List.of(0.0, -0.0, 0.005, 0.015, 12.345, 12.355, 999.99, 999.995,
+                1000.0, 1234.5678, -0.004, -12.5, 100.0, 0.1 * 3 * 100, Double.NaN));
+        Random random = new Random(39);
+        for (int i = 0; i < 20_000; i++) {
+            double sek = switch (i % 4) {
+                case 0 -> random.nextDouble() * 3;
+                case 1 -> random.nextInt(300_000) / 100_000.0;
+                case 2 -> (random.nextDouble() - 0.5) * 0.4;
+                default -> random.nextDouble() * 40;
+            };
+            prices.add(sek * Main.CONVERT_TO_ORE);
+        }
+        return prices;
+    }
+
+    private static byte[] withPrintf(Charset charset, List<Double> prices) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bos, false, charset);
+        for (int i = 0; i < prices.size(); i++) {
+            out.printf("Högsta pris: %s-%s %s öre\n", String.format("%02d", i % 24), String.format("%02d", (i + 1) % 24),
+                    Main.PRICE_FORMAT.format(prices.get(i)));
+            out.printf("Medelpris: %s öre\n", Main.PRICE_FORMAT.format(prices.get(i)));
+        }
+        out.flush();
+        return bos.toByteArray();
+    }
+
+    private static byte[] withRenderer(Charset charset, List<Double> prices) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        PriceRenderer renderer = new PriceRenderer().start(new PrintStream(bos, false, charset));
+        for (int i = 0; i < prices.size(); i++) {
+            renderer.row("Högsta pris: ", i % 24, (i + 1) % 24, prices.get(i));
+            renderer.price("Medelpris: ", prices.get(i));
+        }
+        renderer.flush();
+        return bos.toByteArray();
+    }
+
+    @Test
+    void outputIsByteIdenticalToPrintf() {
+        List<Double> prices = prices();
+        for (Charset charset : List.of(StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII)) {
+            assertThat(withRenderer(charset, prices)).isEqualTo(withPrintf(charset, prices));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example;
+
+import com.example.api.ElpriserAPI;
+import com.example.api.PriceSeries;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RankedPricesTest {
+
+    private static List<ElpriserAPI.Elpris> randomPrices(Random random, int count) {
+        ZonedDateTime start = ZonedDateTime.parse("2025-09-04T00:00:00+02:00");
+        List<ElpriserAPI.Elpris> priser = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // Few distinct values so there are plenty of ties
+            double sek = random.nextInt(20) / 100.0;
+            priser.add(new ElpriserAPI.Elpris(sek, sek / 10, 10.0, start.plusMinutes(15L * i), start.plusMinutes(15L * (i + 1))));
+        }
+        return priser;
+    }
+
+    @Test
+    void descending_matchesStableSortAndLeavesListUntouched() {
+        List<ElpriserAPI.Elpris> priser = randomPrices(new Random(1), 96);
+        List<ElpriserAPI.Elpris> copy = List.copyOf(priser);
+
+        List<ElpriserAPI.Elpris> expected = new ArrayList<>(priser);
+        expected.sort(Comparator.comparing(ElpriserAPI.Elpris::sekPerKWh).reversed());
+
+        assertThat(new RankedPrices(priser).descending()).containsExactlyElementsOf(expected);
+        assertThat(priser).containsExactlyElementsOf(copy);
+    }
+
+    @Test
+    void priceSeries_doesNotFollowLaterChangesToTheList() {
+        List<ElpriserAPI.Elpris> priser = randomPrices(new Random(3), 8);
+        PriceSeries series = PriceSeries.of(priser);
+        List<ElpriserAPI.Elpris> before = List.copyOf(priser);
+
+        priser.set(0, priser.get(7));
+        priser.remove(1);
+
+        assertThat(series.toList()).containsExactlyElementsOf(before);
+        assertThat(series.sekPerKWh(0)).isEqualTo(series.toList().get(0).sekPerKWh());
+    }
+
+    @Test
+    void cheapestAndMostExpensive_matchSortedPrefix() {
+        Random random = new Random(2);
+        for (int round = 0; round < 50; round++) {
+            List<ElpriserAPI.Elpris> priser = randomPrices(random, 1 + random.nextInt(200));
+            RankedPrices ranked = new RankedPrices(priser);
+            int k = random.nextInt(priser.size() + 5);
+
+            List<ElpriserAPI.Elpris> ascending = new ArrayList<>(priser);
+            ascending.sort(Comparator.comparingDouble(ElpriserAPI.Elpris::sekPerKWh));
+            List<ElpriserAPI.Elpris> descending = new ArrayList<>(priser);
+            descending.sort(Comparator.comparing(ElpriserAPI.Elpris::sekPerKWh).reversed());
+
+            int limit = Math.min(k, priser.size());
+            assertThat(ranked.cheapest(k)).containsExactlyElementsOf(ascending.subList(0, limit));
+            assertThat(ranked.mostExpensive(k)).containsExactlyElementsOf(descending.subList(0, limit));
+        }
+    }
+
+    @Test
+    void rank_isPositionInAscendingOrder() {
+        List<ElpriserAPI.Elpris> priser = randomPrices(new Random(3), 24);
+        RankedPrices ranked = new RankedPrices(priser);
+        List<ElpriserAPI.Elpris> ascending = ranked.ascending();
+
+        for (int i = 0; i < priser.size(); i++) {
+            assertThat(ascending.get(ranked.rank(i) - 1)).isSameAs(priser.get(i));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example;
+
+import com.example.api.ElpriserAPI;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReplTest {
+    PrintStream originalOut;
+    ByteArrayOutputStream bos;
+    String originalCacheDir;
+
+    //Main creates its own ElpriserAPI, which would otherwise write its cache files to the home directory
+    @TempDir
+    Path cacheDir;
+
+    @BeforeEach
+    void setup() {
+        originalCacheDir = System.getProperty("elpriser.cache.dir");
+        System.setProperty("elpriser.cache.dir", cacheDir.toString());
+        originalOut = System.out;
+        bos = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(bos));
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.setOut(originalOut);
+        ElpriserAPI.clearMockResponse();
+        if (originalCacheDir == null) {
+            System.clearProperty("elpriser.cache.dir");
+        } else {
+            System.setProperty("elpriser.cache.dir", originalCacheDir);
+        }
+    }
+
+    @Test
+    void runsEveryLineAgainstTheSameApi_andKeepsGoingAfterErrors() {
+        ElpriserAPI.setMockResponseForDate(LocalDate.of(2025, 9, 4), """
+                [{"SEK_per_kWh":0.50,"EUR_per_kWh":0.05,"EXR":10.0,"time_start":"2025-09-04T00:00:00+02:00","time_end":"2025-09-04T01:00:00+02:00"},
+                 {"SEK_per_kWh":0.10,"EUR_per_kWh":0.01,"EXR":10.0,"time_start":"2025-09-04T01:00:00+02:00","time_end":"2025-09-04T02:00:00+02:00"}]""");
+        String input = String.join("\n",
+                "--zone SE3 --date 2025-09-04",
+                "",
+                "--zone",
+                "--zone SE3 --date 2025-09-04 --charging 2h",
+                "exit",
+                "--zone SE3 --date 2025-09-04 --sorted");
+
+        new Repl(new ElpriserAPI(true)).run(new BufferedReader(new StringReader(input)));
+
+        String output = bos.toString();
+        assertThat(output).contains("Lägsta pris: 01-02 10,00 öre");
+        assertThat(output).contains("Påbörja laddning kl 00:00");
+        assertThat(output).contains("Fel: --zone saknar ett värde");
+        //Three commands, each with its time, and nothing after exit
+        assertThat(Arrays.stream(output.split("\n")).filter(line -> line.matches("\\(\\d+,\\d{3} ms\\)"))).hasSize(3);
+        assertThat(output).doesNotContain("\n00-01 50,00 öre"); //The sorted command after exit never ran
+    }
+
+    @Test
+    void missingValue_namesTheFlagThatNeedsIt() {
+        assertThatThrownBy(() -> Options.parse(new String[]{"--zone", "SE3", "--sorted", "--charging"}))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("--charging saknar ett värde");
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.api;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ArchiveImporterTest {
+
+    private static final PriceSource OFFLINE = (datum, prisklass) -> {
+        throw new IOException("Nätverket ska inte användas");
+    };
+
+    @TempDir
+    Path tmp;
+
+    private static Map<String, String> archive() {
+        Map<String, String> filer = new LinkedHashMap<>();
+        LocalDate första = LocalDate.of(2025, 3, 25);
+        for (int dag = 0; dag < 10; dag++) {
+            LocalDate datum = första.plusDays(dag);
+            filer.put(String.format("%d/%02d-%02d_SE3.json", datum.getYear(), datum.getMonthValue(), datum.getDayOfMonth()),
+                    PriceCodecTest.dayJson(datum, 15, 0.3 + dag * 0.01));
+        }
+        filer.put("README.txt", "inte en dag");
+        filer.put("2025/04-10_SE3.json", "[]");
+        return filer;
+    }
+
+    // Skriver en minimal ustar-fil, samma format som "tar cf"
+    private static void writeTar(Map<String, String> filer, OutputStream out) throws IOException {
+        for (Map.Entry<String, String> fil : filer.entrySet()) {
+            byte[] data = fil.getValue().getBytes(StandardCharsets.UTF_8);
+            byte[] header = new byte[512];
+            put(header, 0, fil.getKey());
+            put(header, 100, "0000644");
+            put(header, 124, String.format("%011o", data.length));
+            put(header, 136, String.format("%011o", 0));
+            header[156] = '0';
+            put(header, 257, "ustar");
+            put(header, 263, "00");
+            Arrays.fill(header, 148, 156, (byte) ' ');
+            int summa = 0;
+            for (byte b : header) {
+                summa += b & 0xff;
+            }
+            put(header, 148, String.format("%06o", summa));
+            out.write(header);
+            out.write(data);
+            out.write(new byte[(512 - data.length % 512) % 512]);
+        }
+        out.write(new byte[1024]);
+    }
+
+    private static void put(byte[] header, int från, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, från, bytes.length);
+    }
+
+    private void assertImported(ArchiveImporter.Result result, Path cacheDir) {
+        assertThat(result.dagar()).isEqualTo(10);
+        assertThat(result.hoppadeÖver()).isEqualTo(2);
+        assertThat(result.misslyckade()).isZero();
+        assertThat(result.intervall()).isEqualTo(9 * 96 + 92); // 30 mars har bara 23 timmar
+
+        // En ny instans med samma katalog ska klara sig helt utan nätverket
+        ElpriserAPI offline = new ElpriserAPI(true, cacheDir, OFFLINE);
+        LocalDate datum = LocalDate.of(2025, 3, 28);
+        assertThat(offline.getPriser(datum, ElpriserAPI.Prisklass.SE3))
+                .containsExactlyElementsOf(ElpriserAPI.parseSimpleJson(archive().get("2025/03-28_SE3.json")));
+        assertThat(offline.getSammanfattning(LocalDate.of(2025, 3, 30), ElpriserAPI.Prisklass.SE3).antalIntervall()).isEqualTo(92);
+    }
+
+    @Test
+    void importsDirectory() throws IOException {
+        Path katalog = tmp.resolve("arkiv");
+        for (Map.Entry<String, String> fil : archive().entrySet()) {
+            Path path = katalog.resolve(fil.getKey());
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, fil.getValue());
+        }
+        Path cacheDir = tmp.resolve("cache");
+
+        ArchiveImporter.Result result = new ArchiveImporter(new ElpriserAPI(true, cacheDir, OFFLINE), 4).importera(katalog);
+
+        assertImported(result, cacheDir);
+    }
+
+    // Index of the tar header for the named entry
+    private static int headerOffset(byte[] tar, String namn) {
+        byte[] bytes = namn.getBytes(StandardCharsets.US_ASCII);
+        for (int offset = 0; offset + 512 <= tar.length; offset += 512) {
+            if (Arrays.equals(tar, offset, offset + bytes.length, bytes, 0, bytes.length)) {
+                return offset;
+            }
+        }
+        throw new AssertionError("no header for " + namn);
+    }
+
+    @Test
+    void corruptTarHeader_countsAsFailedAndImportContinues() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writeTar(archive(), bytes);
+        byte[] tar = bytes.toByteArray();
+        tar[headerOffset(tar, "2025/03-28_SE3.json") + 124] = 'x'; // Size is no longer octal
+        Path fil = tmp.resolve("arkiv.tar");
+        Files.write(fil, tar);
+
+        ArchiveImporter.Result result = new ArchiveImporter(new ElpriserAPI(true, tmp.resolve("cache"), OFFLINE), 2).importera(fil);
+
+        assertThat(result.misslyckade()).isEqualTo(1);
+        assertThat(result.dagar()).isEqualTo(9);
+        assertThat(result.hoppadeÖver()).isEqualTo(2);
+    }
+
+    @Test
+    void corruptTarHeaderWithNothingAfterIt_stopsCleanly() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writeTar(archive(), bytes);
+        byte[] tar = bytes.toByteArray();
+        // Cut the archive right after a broken header, so there is nothing to resync to
+        int offset = headerOffset(tar, "2025/04-10_SE3.json");
+        tar = Arrays.copyOf(tar, offset + 512);
+        tar[offset + 124] = 'x';
+        Path fil = tmp.resolve("arkiv.tar");
+        Files.write(fil, tar);
+
+        ArchiveImporter.Result result = new ArchiveImporter(new ElpriserAPI(true, tmp.resolve("cache"), OFFLINE), 2).importera(fil);
+
+        assertThat(result.dagar()).isEqualTo(10);
+        assertThat(result.misslyckade()).isEqualTo(1);
+    }
+
+    @Test
+    void importWithoutCacheDirectory_isRejected() {
+        ElpriserAPI api = new ElpriserAPI(true, null, OFFLINE);
+
+        assertThatThrownBy(() -> api.importera(LocalDate.of(2025, 9, 4), ElpriserAPI.Prisklass.SE3,
+                PriceCodecTest.dayJson(LocalDate.of(2025, 9, 4), 60, 0.5)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void importedDay_replacesTheSharedCacheCopy() {
+        LocalDate datum = LocalDate.of(2025, 9, 4);
+        Path cacheDir = tmp.resolve("cache");
+        new ElpriserAPI(true, cacheDir, (d, p) -> PriceCodecTest.dayJson(d, 60, 0.5)).getPriser(datum, ElpriserAPI.Prisklass.SE3);
+        String rättad = PriceCodecTest.dayJson(datum, 60, 0.9);
+
+        new ElpriserAPI(true, cacheDir, OFFLINE).importera(datum, ElpriserAPI.Prisklass.SE3, rättad);
+
+        assertThat(new ElpriserAPI(true, cacheDir, OFFLINE).getPriser(datum, ElpriserAPI.Prisklass.SE3))
+                .containsExactlyElementsOf(ElpriserAPI.parseSimpleJson(rättad));
+    }
+
+    @Test
+    void importsGzippedTar() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            writeTar(archive(), gzip);
+        }
+        Path tar = tmp.resolve("arkiv.tar.gz");
+        Files.write(tar, bytes.toByteArray());
+        Path cacheDir = tmp.resolve("cache");
+
+        ArchiveImporter.Result result = new ArchiveImporter(new ElpriserAPI(true, cacheDir, OFFLINE), 4).importera(tar);
+
+        assertImported(result, cacheDir);
+    }
+}
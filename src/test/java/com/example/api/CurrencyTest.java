@@ -0,0 +1,55 @@
+package com.example.api;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.NavigableMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class CurrencyTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void pricesColumnMatchesPerRowConversion() {
+        PriceSeries serie = PriceSeries.of(ElpriserAPI.parseSimpleJson(PriceCodecTest.dayJson(LocalDate.of(2025, 9, 4), 15, 0.4)));
+        Currency dkk = Currency.perEur("DKK", "øre", 7.46);
+
+        double[] sek = Currency.SEK.prices(serie);
+        double[] kronor = dkk.prices(serie);
+
+        for (int i = 0; i < serie.size(); i++) {
+            assertThat(sek[i]).isEqualTo(serie.sekPerKWh(i));
+            assertThat(kronor[i]).isEqualTo(dkk.price(serie.elpris(i)));
+            assertThat(kronor[i]).isCloseTo(serie.eurPerKWh(i) * 7.46, within(1e-15));
+        }
+    }
+
+    @Test
+    void exchangeRates_comeFromCachedDaysOnly() throws IOException {
+        Path cacheDir = tmp.resolve("cache");
+        LocalDate första = LocalDate.of(2025, 9, 1);
+        ElpriserAPI api = new ElpriserAPI(true, cacheDir, (datum, prisklass) -> PriceCodecTest.dayJson(datum, 60, 0.4));
+        api.getPriser(första, ElpriserAPI.Prisklass.SE3);
+        api.getPriser(första.plusDays(2), ElpriserAPI.Prisklass.SE4);
+
+        // En ny instans som inte får använda nätverket läser kurserna från disk
+        AtomicInteger anrop = new AtomicInteger();
+        ElpriserAPI offline = new ElpriserAPI(true, cacheDir, (datum, prisklass) -> {
+            anrop.incrementAndGet();
+            return null;
+        });
+        NavigableMap<LocalDate, Double> kurser = offline.getVäxelkurser(första, första.plusDays(3));
+
+        assertThat(kurser).containsOnlyKeys(första, första.plusDays(2));
+        assertThat(kurser.get(första)).isCloseTo(11.0512, within(1e-9));
+        assertThat(anrop).hasValue(0);
+    }
+}
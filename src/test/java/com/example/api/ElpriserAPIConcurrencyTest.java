@@ -0,0 +1,158 @@
+package com.example.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Stress tests for one shared ElpriserAPI instance used from many threads.
+ */
+class ElpriserAPIConcurrencyTest {
+
+    private static final int THREADS = 32;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        ElpriserAPI.clearMockResponse();
+    }
+
+    private static String dayJson(LocalDate datum, double sek) {
+        return String.format(java.util.Locale.US, """
+                [{"SEK_per_kWh":%.5f,"EUR_per_kWh":0.01,"EXR":10.0,"time_start":"%sT00:00:00+02:00","time_end":"%sT01:00:00+02:00"}]""",
+                sek, datum, datum);
+    }
+
+    // Runs the task on every thread at the same time and returns all results
+    private <T> List<T> runConcurrently(java.util.concurrent.Callable<T> task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get(30, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    @Test
+    void sameDay_isFetchedOnceAndShared() throws Exception {
+        AtomicInteger fetches = new AtomicInteger();
+        PriceSource slowSource = (datum, prisklass) -> {
+            fetches.incrementAndGet();
+            Thread.sleep(50); // Keep the fetch in flight while the other threads arrive
+            return dayJson(datum, 0.5);
+        };
+        ElpriserAPI api = new ElpriserAPI(true, null, slowSource);
+        LocalDate datum = LocalDate.of(2025, 9, 4);
+
+        List<List<ElpriserAPI.Elpris>> results = runConcurrently(() -> api.getPriser(datum, ElpriserAPI.Prisklass.SE3));
+
+        assertThat(fetches.get()).isEqualTo(1);
+        assertThat(results).allSatisfy(priser -> assertThat(priser).isSameAs(results.get(0)).hasSize(1));
+    }
+
+    @Test
+    void manyDaysAndZones_eachFetchedExactlyOnce() throws Exception {
+        Map<String, AtomicInteger> fetchesPerKey = new ConcurrentHashMap<>();
+        PriceSource source = (datum, prisklass) -> {
+            fetchesPerKey.computeIfAbsent(datum + "_" + prisklass, k -> new AtomicInteger()).incrementAndGet();
+            return dayJson(datum, datum.getDayOfMonth() / 100.0);
+        };
+        ElpriserAPI api = new ElpriserAPI(true, null, source);
+        LocalDate first = LocalDate.of(2025, 1, 1);
+
+        List<Integer> totals = runConcurrently(() -> {
+            int total = 0;
+            for (int round = 0; round < 200; round++) {
+                int day = (int) (Thread.currentThread().threadId() * 7 + round) % 20;
+                ElpriserAPI.Prisklass prisklass = ElpriserAPI.Prisklass.values()[round % 4];
+                List<ElpriserAPI.Elpris> priser = api.getPriser(first.plusDays(day), prisklass);
+                assertThat(priser.get(0).timeStart().toLocalDate()).isEqualTo(first.plusDays(day));
+                total += priser.size();
+            }
+            return total;
+        });
+
+        assertThat(totals).allSatisfy(total -> assertThat(total).isEqualTo(200));
+        assertThat(fetchesPerKey.values()).allSatisfy(count -> assertThat(count.get()).isEqualTo(1));
+    }
+
+    @Test
+    void emptyDays_areNotCachedButStillSingleFlight() throws Exception {
+        AtomicInteger fetches = new AtomicInteger();
+        PriceSource source = (datum, prisklass) -> {
+            fetches.incrementAndGet();
+            Thread.sleep(50);
+            return null; // As if the server answered 404
+        };
+        ElpriserAPI api = new ElpriserAPI(true, null, source);
+        LocalDate datum = LocalDate.of(2025, 9, 5);
+
+        List<List<ElpriserAPI.Elpris>> results = runConcurrently(() -> api.getPriser(datum, ElpriserAPI.Prisklass.SE1));
+
+        assertThat(results).allSatisfy(priser -> assertThat(priser).isEmpty());
+        assertThat(fetches.get()).isLessThan(THREADS);
+        // A later call tries again, since tomorrow's prices may have been published by then
+        api.getPriser(datum, ElpriserAPI.Prisklass.SE1);
+        assertThat(fetches.get()).isGreaterThan(1);
+    }
+
+    @Test
+    void separateInstances_doNotShareCaches() {
+        ElpriserAPI cheap = new ElpriserAPI(true, null, (datum, prisklass) -> dayJson(datum, 0.1));
+        ElpriserAPI expensive = new ElpriserAPI(true, null, (datum, prisklass) -> dayJson(datum, 2.0));
+        LocalDate datum = LocalDate.of(2025, 9, 4);
+
+        assertThat(cheap.getPriser(datum, ElpriserAPI.Prisklass.SE3).get(0).sekPerKWh()).isEqualTo(0.1);
+        assertThat(expensive.getPriser(datum, ElpriserAPI.Prisklass.SE3).get(0).sekPerKWh()).isEqualTo(2.0);
+    }
+
+    @Test
+    void cachedLists_cannotBeModifiedByCallers() {
+        ElpriserAPI api = new ElpriserAPI(true, null, (datum, prisklass) -> dayJson(datum, 0.1));
+        List<ElpriserAPI.Elpris> priser = api.getPriser(LocalDate.of(2025, 9, 4), ElpriserAPI.Prisklass.SE3);
+
+        assertThatThrownBy(priser::clear).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void mockHooks_canBeUsedFromManyThreads() throws Exception {
+        ElpriserAPI api = new ElpriserAPI(false, null, (datum, prisklass) -> null);
+        LocalDate first = LocalDate.of(2025, 1, 1);
+
+        List<Boolean> results = runConcurrently(() -> {
+            for (int i = 0; i < 500; i++) {
+                LocalDate datum = first.plusDays(i % 50);
+                ElpriserAPI.setMockResponseForDate(datum, dayJson(datum, 0.2));
+                api.getPriser(datum, ElpriserAPI.Prisklass.SE2);
+            }
+            return true;
+        });
+
+        assertThat(results).containsOnly(true);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load test for ElpriserAPI with many concurrent callers. Starts a local stub server with the
+ * same URL pattern as elprisetjustnu.se that serves generated quarter-hour days, then lets
+ * every client (one virtual thread each) call getPriser for random days and zones. A small
+ * key space gives mostly cache hits, a large one mostly misses.
+ * <p>
+ * Not a unit test and needs no network. Run it with the loadtest profile, settings are
+ * system properties:
+ * <pre>
+ * mvn -Ploadtest test-compile exec:java -Dloadtest.clients=500 -Dloadtest.latencyMs=50
+ * </pre>
+ * or by hand after test-compile:
+ * <pre>
+ * java -cp target/classes:target/test-classes -Dloadtest.clients=500 com.example.api.ElpriserLoadRunner
+ * </pre>
+ */
+public class ElpriserLoadRunner {
+
+    private static final Pattern PATH = Pattern.compile(".*/(\\d{4})/(\\d{2})-(\\d{2})_(SE[1-4])\\.json");
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 1);
+
+    private final int clients = Integer.getInteger("loadtest.clients", 200);
+    private final int requestsPerClient = Integer.getInteger("loadtest.requests", 200);
+    private final int days = Integer.getInteger("loadtest.days", 60);
+    private final int latencyMs = Integer.getInteger("loadtest.latencyMs", 20);
+    private final double errorRate = Double.parseDouble(System.getProperty("loadtest.errorRate", "0.01"));
+    private final boolean caching = Boolean.parseBoolean(System.getProperty("loadtest.caching", "true"));
+
+    private final AtomicLong upstreamRequests = new AtomicLong();
+    private final AtomicLong upstreamErrors = new AtomicLong();
+    // JSON per URL, genereras en gång så att servern inte mäter sin egen formattering
+    private final Map<String, byte[]> responses = new ConcurrentHashMap<>();
+
+    public static void main(String[] args) throws Exception {
+        new ElpriserLoadRunner().run();
+    }
+
+    private void run() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        System.out.printf("Klienter %d, anrop per klient %d, dagar %d, latens %d ms, felfrekvens %.3f, cachning %s%n",
+                clients, requestsPerClient, days, latencyMs, errorRate, caching ? "på" : "av");
+
+        try (HttpClient httpClient = HttpClient.newHttpClient();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            ElpriserAPI api = new ElpriserAPI(caching, null, PriceSource.http(httpClient, baseUrl));
+            ElpriserAPI.Prisklass[] zoner = ElpriserAPI.Prisklass.values();
+
+            long start = System.nanoTime();
+            List<Future<long[]>> futures = new java.util.ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    // Sista platsen räknar anrop som gav en tom lista (fel uppströms)
+                    long[] latencies = new long[requestsPerClient + 1];
+                    for (int r = 0; r < requestsPerClient; r++) {
+                        LocalDate datum = FIRST_DAY.plusDays(random.nextInt(days));
+                        ElpriserAPI.Prisklass zon = zoner[random.nextInt(zoner.length)];
+                        long t0 = System.nanoTime();
+                        List<ElpriserAPI.Elpris> priser = api.getPriser(datum, zon);
+                        latencies[r] = System.nanoTime() - t0;
+                        if (priser.isEmpty()) {
+                            latencies[requestsPerClient]++;
+                        }
+                    }
+                    return latencies;
+                }));
+            }
+
+            long[] all = new long[clients * requestsPerClient];
+            long empty = 0;
+            for (int c = 0; c < clients; c++) {
+                long[] latencies = futures.get(c).get();
+                System.arraycopy(latencies, 0, all, c * requestsPerClient, requestsPerClient);
+                empty += latencies[requestsPerClient];
+            }
+            long elapsed = System.nanoTime() - start;
+            report(all, empty, elapsed);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private void report(long[] latencies, long empty, long elapsedNanos) {
+        Arrays.sort(latencies);
+        System.out.printf("Anrop %d på %.2f s, %.0f anrop/s%n",
+                latencies.length, elapsedNanos / 1e9, latencies.length / (elapsedNanos / 1e9));
+        System.out.printf("Latens ms: p50 %.3f, p90 %.3f, p99 %.3f, p99.9 %.3f, max %.3f%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), latencies[latencies.length - 1] / 1e6);
+        System.out.printf("Uppströms: %d anrop, %d fel, %d tomma svar till klienter (möjliga nycklar %d)%n",
+                upstreamRequests.get(), upstreamErrors.get(), empty, (long) days * ElpriserAPI.Prisklass.values().length);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    // Stubbservern: väntar den inställda latensen, svarar ibland 500, annars med dagens JSON
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            upstreamRequests.incrementAndGet();
+            if (latencyMs > 0) {
+                Thread.sleep(latencyMs);
+            }
+            Matcher matcher = PATH.matcher(exchange.getRequestURI().getPath());
+            if (!matcher.matches()) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                upstreamErrors.incrementAndGet();
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            byte[] body = responses.computeIfAbsent(matcher.group(0), key -> {
+                LocalDate datum = LocalDate.of(Integer.parseInt(matcher.group(1)),
+                        Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3)));
+                double base = 0.2 + matcher.group(4).charAt(2) * 0.01;
+                return PriceCodecTest.dayJson(datum, 15, base).getBytes(StandardCharsets.UTF_8);
+            });
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
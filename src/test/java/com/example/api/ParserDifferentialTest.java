@@ -0,0 +1,212 @@
+package com.example.api;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Slumpade JSON-svar, även sommartidsdagar, som tolkas både av {@link ElpriserAPI#parseSimpleJson}
+ * och av en enkel referens byggd på {@link ZonedDateTime#parse} och {@link Double#parseDouble}.
+ * Samma serier går också fram och tillbaka genom {@link PriceCodec} och {@link Resampler}, så att
+ * optimeringar av tolkningen och lagringen inte kan ändra ett enda värde utan att det märks.
+ */
+class ParserDifferentialTest {
+
+    private static final DateTimeFormatter API_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssXXX");
+    private static final int SEEDS = 20;
+    private static final int[] SIZES = {24, 92, 96, 100, 192};
+    private static final String[] FÄLT = {"SEK_per_kWh", "EUR_per_kWh", "EXR", "time_start", "time_end"};
+
+    // Ett genererat svar: JSON-texten och fälten som de skrevs, i API:ets ordning
+    record Svar(String json, List<String[]> objekt) {}
+
+    static Stream<Arguments> cases() {
+        return IntStream.range(0, SEEDS).boxed()
+                .flatMap(seed -> IntStream.of(SIZES).mapToObj(size -> Arguments.of(seed * 104729L + size, size)));
+    }
+
+    @ParameterizedTest(name = "seed {0}, {1} intervall")
+    @MethodSource("cases")
+    void parseSimpleJson_matchesReferenceParser(long seed, int size) {
+        Svar svar = svar(seed, size);
+
+        List<ElpriserAPI.Elpris> priser = ElpriserAPI.parseSimpleJson(svar.json());
+
+        assertThat(priser).containsExactlyElementsOf(referens(svar));
+        assertThat(priser).hasSize(size);
+    }
+
+    @ParameterizedTest(name = "seed {0}, {1} intervall")
+    @MethodSource("cases")
+    void timestampCodec_matchesZonedDateTime(long seed, int size) {
+        for (String[] objekt : svar(seed, size).objekt()) {
+            for (String tid : new String[]{objekt[3], objekt[4]}) {
+                ZonedDateTime förväntad = ZonedDateTime.parse(tid);
+                assertThat(TimestampCodec.parse(tid)).isEqualTo(förväntad);
+                assertThat(TimestampCodec.toEpochSecond(tid)).isEqualTo(förväntad.toEpochSecond());
+                assertThat(TimestampCodec.hourMinuteLabel(förväntad)).isEqualTo(förväntad.format(DateTimeFormatter.ofPattern("HH:mm")));
+            }
+        }
+    }
+
+    @ParameterizedTest(name = "seed {0}, {1} intervall")
+    @MethodSource("cases")
+    void timestampCodec_rejectsTheSameDatesAsZonedDateTime(long seed, int size) {
+        // Dag 28-31 i slumpade månader och år, så att skottdagar och datum som inte finns kommer med
+        Random random = new Random(seed);
+        for (int i = 0; i < size; i++) {
+            String tid = String.format(Locale.US, "%04d-%02d-%02dT%02d:00:00+01:00",
+                    1996 + random.nextInt(40), 1 + random.nextInt(12), 28 + random.nextInt(4), random.nextInt(24));
+            ZonedDateTime förväntad;
+            try {
+                förväntad = ZonedDateTime.parse(tid);
+            } catch (DateTimeException e) {
+                assertThatThrownBy(() -> TimestampCodec.parse(tid)).as(tid).isInstanceOf(DateTimeException.class);
+                assertThatThrownBy(() -> TimestampCodec.toEpochSecond(tid)).as(tid).isInstanceOf(DateTimeException.class);
+                continue;
+            }
+            assertThat(TimestampCodec.parse(tid)).isEqualTo(förväntad);
+            assertThat(TimestampCodec.toEpochSecond(tid)).isEqualTo(förväntad.toEpochSecond());
+        }
+    }
+
+    @ParameterizedTest(name = "seed {0}, {1} intervall")
+    @MethodSource("cases")
+    void priceCodec_roundTripIsExact(long seed, int size) throws IOException {
+        List<ElpriserAPI.Elpris> priser = referens(svar(seed, size));
+
+        PriceSeries avkodad = PriceCodec.decode(PriceCodec.encode(PriceSeries.of(priser)));
+
+        assertThat(avkodad.toList()).containsExactlyElementsOf(priser);
+    }
+
+    @ParameterizedTest(name = "seed {0}, {1} intervall")
+    @MethodSource("cases")
+    void resampleToHours_matchesNaiveGrouping(long seed, int size) {
+        List<ElpriserAPI.Elpris> priser = referens(svar(seed, size));
+
+        List<ElpriserAPI.Elpris> timmar = Resampler.resample(PriceSeries.of(priser), Resolution.HOUR).toList();
+
+        // Referens: medelvärdet av intervallen med samma lokala timme och samma offset
+        List<ElpriserAPI.Elpris> förväntade = new ArrayList<>();
+        int första = 0;
+        for (int i = 1; i <= priser.size(); i++) {
+            if (i == priser.size() || !sammaTimme(priser.get(första).timeStart(), priser.get(i).timeStart())) {
+                förväntade.add(medel(priser.subList(första, i)));
+                första = i;
+            }
+        }
+        assertThat(timmar).containsExactlyElementsOf(förväntade);
+    }
+
+    // --- Generatorer ---
+
+    // Ett eller två dygn i Stockholmstid. 92 och 100 kvartar är dagarna då sommartiden börjar och slutar
+    static Svar svar(long seed, int size) {
+        Random random = new Random(seed);
+        LocalDate datum = switch (size) {
+            case 92 -> LocalDate.of(2024 + random.nextInt(2), 3, 1).with(TemporalAdjusters.lastInMonth(DayOfWeek.SUNDAY));
+            case 100 -> LocalDate.of(2024 + random.nextInt(2), 10, 1).with(TemporalAdjusters.lastInMonth(DayOfWeek.SUNDAY));
+            default -> LocalDate.of(2025, 4, 1).plusDays(random.nextInt(180));
+        };
+        int minuter = size == 24 ? 60 : 15;
+        long start = datum.atStartOfDay(TimestampCodec.STOCKHOLM).toEpochSecond();
+        List<String[]> objekt = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            long t = start + i * minuter * 60L;
+            double exr = 10.5 + random.nextInt(1_000_000) / 1_000_000.0;
+            String sek = tal(random);
+            objekt.add(new String[]{
+                    sek,
+                    decimaler(Double.parseDouble(sek) / exr, 5),
+                    decimaler(exr, 6),
+                    TimestampCodec.toStockholm(t).format(API_TIME),
+                    TimestampCodec.toStockholm(t + minuter * 60L).format(API_TIME)});
+        }
+        return new Svar(json(objekt, random), objekt);
+    }
+
+    // Ett pris som API:et skulle kunna skriva det: negativt, heltal, avslutande nollor eller många decimaler
+    private static String tal(Random random) {
+        return switch (random.nextInt(8)) {
+            case 0 -> decimaler(-random.nextInt(50000) / 100000.0, 5);
+            case 1 -> Integer.toString(random.nextInt(3));
+            case 2 -> String.format(Locale.US, "%.5f", random.nextInt(100) / 100.0);
+            case 3 -> decimaler(random.nextDouble() * 3, 9);
+            default -> decimaler(random.nextInt(300000) / 100000.0, 5);
+        };
+    }
+
+    // Kortaste texten med högst så många decimaler, som JSON från API:et
+    private static String decimaler(double värde, int antal) {
+        String text = String.format(Locale.US, "%." + antal + "f", värde);
+        text = text.replaceAll("0+$", "").replaceAll("\\.$", "");
+        return text.equals("-0") ? "0" : text;
+    }
+
+    // Fälten i slumpad ordning och med slumpade blanksteg och radbrytningar mellan objekten
+    private static String json(List<String[]> objekt, Random random) {
+        StringBuilder json = new StringBuilder(random.nextBoolean() ? "[" : " [\n");
+        for (int i = 0; i < objekt.size(); i++) {
+            if (i > 0) json.append(random.nextBoolean() ? "," : ",\n  ");
+            List<Integer> ordning = new ArrayList<>(List.of(0, 1, 2, 3, 4));
+            if (random.nextInt(4) == 0) Collections.shuffle(ordning, random);
+            String mellanrum = random.nextInt(4) == 0 ? " " : "";
+            json.append('{');
+            for (int f = 0; f < ordning.size(); f++) {
+                int fält = ordning.get(f);
+                if (f > 0) json.append(',').append(mellanrum);
+                json.append('"').append(FÄLT[fält]).append("\":").append(mellanrum);
+                json.append(fält >= 3 ? "\"" + objekt.get(i)[fält] + "\"" : objekt.get(i)[fält]);
+            }
+            json.append('}');
+        }
+        return json.append(random.nextBoolean() ? "]" : "\n]\n").toString();
+    }
+
+    // --- Referenser ---
+
+    private static List<ElpriserAPI.Elpris> referens(Svar svar) {
+        List<ElpriserAPI.Elpris> priser = new ArrayList<>();
+        for (String[] objekt : svar.objekt()) {
+            priser.add(new ElpriserAPI.Elpris(Double.parseDouble(objekt[0]), Double.parseDouble(objekt[1]),
+                    Double.parseDouble(objekt[2]), ZonedDateTime.parse(objekt[3]), ZonedDateTime.parse(objekt[4])));
+        }
+        return priser;
+    }
+
+    private static boolean sammaTimme(ZonedDateTime a, ZonedDateTime b) {
+        return a.getHour() == b.getHour() && a.toLocalDate().equals(b.toLocalDate()) && a.getOffset().equals(b.getOffset());
+    }
+
+    private static ElpriserAPI.Elpris medel(List<ElpriserAPI.Elpris> grupp) {
+        double sek = 0;
+        double eur = 0;
+        double exr = 0;
+        for (ElpriserAPI.Elpris pris : grupp) {
+            sek += pris.sekPerKWh();
+            eur += pris.eurPerKWh();
+            exr += pris.exr();
+        }
+        return new ElpriserAPI.Elpris(sek / grupp.size(), eur / grupp.size(), exr / grupp.size(),
+                grupp.getFirst().timeStart(), grupp.getLast().timeEnd());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PercentileRankerTest {
+
+    private static final ElpriserAPI.Prisklass ZON = ElpriserAPI.Prisklass.SE3;
+
+    // En dag per timme där alla timmar har samma pris
+    private static PriceSeries day(LocalDate datum, double sek) {
+        return PriceSeries.of(ElpriserAPI.parseSimpleJson(PriceCodecTest.dayJson(datum, 60, sek)));
+    }
+
+    // Rangen räknad direkt ur historiken, med samma fack och samma halva för lika fack
+    private static double reference(List<Double> historik, double pris) {
+        long fack = Math.round(Math.floor((pris + 1.0) / 0.005));
+        double rang = 0;
+        for (double h : historik) {
+            long f = Math.round(Math.floor((h + 1.0) / 0.005));
+            rang += f < fack ? 1 : f == fack ? 0.5 : 0;
+        }
+        return 100 * rang / historik.size();
+    }
+
+    @Test
+    void rankMatchesRescanOfEachRollingPeriod() {
+        PercentileRanker ranker = new PercentileRanker();
+        Random random = new Random(40);
+        LocalDate första = LocalDate.of(2024, 1, 1);
+        List<Double> priser = new ArrayList<>();
+        for (int dag = 0; dag < 500; dag++) {
+            double sek = Math.round(random.nextDouble() * 300) / 100.0;
+            priser.add(sek);
+            ranker.onNewDay(första.plusDays(dag), ZON, day(första.plusDays(dag), sek));
+        }
+
+        // dayJson lägger (i % 7) * 0,01234 på varje timme, så timme 3 har sitt eget tillägg
+        int timme = 3;
+        double tillägg = timme % 7 * 0.01234;
+        for (PercentileRanker.Period period : PercentileRanker.Period.values()) {
+            List<Double> historik = new ArrayList<>();
+            for (double p : priser.subList(priser.size() - period.dagar(), priser.size())) {
+                historik.add(Math.round((p + tillägg) * 1e5) / 1e5);
+            }
+            assertThat(ranker.count(ZON, timme, period)).isEqualTo(period.dagar());
+            for (double fråga : new double[]{0.0, 0.5, 1.2345, 2.0, 3.5}) {
+                assertThat(ranker.percentileRank(ZON, timme, fråga, period))
+                        .isCloseTo(reference(historik, fråga), within(1e-9));
+            }
+        }
+    }
+
+    @Test
+    void lateOldDay_onlyCountsInPeriodsItBelongsTo() {
+        PercentileRanker ranker = new PercentileRanker();
+        LocalDate senaste = LocalDate.of(2025, 6, 1);
+        ranker.onNewDay(senaste, ZON, day(senaste, 1.0));
+        ranker.onNewDay(senaste.minusDays(60), ZON, day(senaste.minusDays(60), 0.1));
+        ranker.onNewDay(senaste.minusDays(400), ZON, day(senaste.minusDays(400), 0.1));
+
+        assertThat(ranker.count(ZON, 0, PercentileRanker.Period.DAYS_30)).isEqualTo(1);
+        assertThat(ranker.count(ZON, 0, PercentileRanker.Period.DAYS_90)).isEqualTo(2);
+        assertThat(ranker.count(ZON, 0, PercentileRanker.Period.DAYS_365)).isEqualTo(2);
+        assertThat(ranker.percentileRank(ZON, 0, 0.5, PercentileRanker.Period.DAYS_90)).isEqualTo(50.0);
+        assertThat(ranker.percentileRank(ElpriserAPI.Prisklass.SE1, 0, 0.5, PercentileRanker.Period.DAYS_90)).isNaN();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.api;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the binary price format with the upstream JSON for size and decode speed.
+ * The binary column decodes to a {@link PriceSeries} only; the list column also builds
+ * the {@code Elpris} objects, which is what the cache and JSON parsing both return.
+ * Not a unit test, run it by hand after test-compile:
+ * <pre>
+ * java -cp target/classes:target/test-classes com.example.api.PriceCodecBenchmark
+ * </pre>
+ */
+public class PriceCodecBenchmark {
+
+    private static final int DAYS = 365;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws IOException {
+        List<String> jsonDays = new ArrayList<>();
+        List<byte[]> binaryDays = new ArrayList<>();
+        long jsonBytes = 0;
+        long binaryBytes = 0;
+        LocalDate first = LocalDate.of(2025, 1, 1);
+        for (int day = 0; day < DAYS; day++) {
+            String json = PriceCodecTest.dayJson(first.plusDays(day), 15, 0.1 + day % 30 * 0.01);
+            byte[] binary = PriceCodec.encode(PriceSeries.of(ElpriserAPI.parseSimpleJson(json)));
+            jsonDays.add(json);
+            binaryDays.add(binary);
+            jsonBytes += json.getBytes(StandardCharsets.UTF_8).length;
+            binaryBytes += binary.length;
+        }
+        System.out.printf("Storlek för %d dagar: JSON %d byte, binärt %d byte (%.1f gånger mindre)%n",
+                DAYS, jsonBytes, binaryBytes, (double) jsonBytes / binaryBytes);
+
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long jsonStart = System.nanoTime();
+            for (String json : jsonDays) {
+                sink += ElpriserAPI.parseSimpleJson(json).size();
+            }
+            long jsonTime = System.nanoTime() - jsonStart;
+
+            long binaryStart = System.nanoTime();
+            for (byte[] binary : binaryDays) {
+                sink += PriceCodec.decode(binary).size();
+            }
+            long binaryTime = System.nanoTime() - binaryStart;
+
+            // The cache hands out lists, so also time building the Elpris objects
+            long listStart = System.nanoTime();
+            for (byte[] binary : binaryDays) {
+                sink += PriceCodec.decode(binary).toList().size();
+            }
+            long listTime = System.nanoTime() - listStart;
+
+            System.out.printf("Runda %2d: JSON %6.2f ms, binärt %6.2f ms, binärt till lista %6.2f ms%n",
+                    round + 1, jsonTime / 1e6, binaryTime / 1e6, listTime / 1e6);
+        }
+        System.out.println("(" + sink + ")");
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PriceCodecTest {
+
+    private static final DateTimeFormatter API_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssXXX");
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        ElpriserAPI.clearMockResponse();
+    }
+
+    // Builds an API-style JSON day in Stockholm time, so DST days get 92 or 100 quarters
+    static String dayJson(LocalDate datum, int minutes, double basePrice) {
+        long start = datum.atStartOfDay(TimestampCodec.STOCKHOLM).toEpochSecond();
+        long end = datum.plusDays(1).atStartOfDay(TimestampCodec.STOCKHOLM).toEpochSecond();
+        StringBuilder json = new StringBuilder("[");
+        int i = 0;
+        for (long t = start; t < end; t += minutes * 60L, i++) {
+            if (i > 0) json.append(",");
+            double sek = basePrice + (i % 7) * 0.01234;
+            json.append(String.format(Locale.US,
+                    "{\"SEK_per_kWh\":%.5f,\"EUR_per_kWh\":%.5f,\"EXR\":11.0512,\"time_start\":\"%s\",\"time_end\":\"%s\"}",
+                    sek, sek / 11.0512, TimestampCodec.toStockholm(t).format(API_TIME), TimestampCodec.toStockholm(t + minutes * 60L).format(API_TIME)));
+        }
+        return json.append("]").toString();
+    }
+
+    @Test
+    void roundTrip_isExactForQuarterHourAndDstDays() throws IOException {
+        for (LocalDate datum : List.of(LocalDate.of(2025, 9, 4), LocalDate.of(2025, 3, 30), LocalDate.of(2025, 10, 26))) {
+            List<ElpriserAPI.Elpris> priser = ElpriserAPI.parseSimpleJson(dayJson(datum, 15, 0.5));
+
+            List<ElpriserAPI.Elpris> decoded = PriceCodec.decode(PriceCodec.encode(PriceSeries.of(priser))).toList();
+
+            assertThat(decoded).containsExactlyElementsOf(priser);
+        }
+    }
+
+    @Test
+    void roundTrip_fallsBackToRawDoublesForUnusualValues() throws IOException {
+        List<ElpriserAPI.Elpris> priser = ElpriserAPI.parseSimpleJson("""
+                [{"SEK_per_kWh":0.123456789,"EUR_per_kWh":-0.01,"EXR":10.0,"time_start":"2025-09-04T00:00:00+02:00","time_end":"2025-09-04T01:00:00+02:00"}]""");
+
+        byte[] encoded = PriceCodec.encode(PriceSeries.of(priser));
+
+        assertThat(encoded[4] & PriceCodec.FLAG_RAW_DOUBLES).isNotZero();
+        assertThat(PriceCodec.decode(encoded).toList()).containsExactlyElementsOf(priser);
+    }
+
+    @Test
+    void encoded_isMuchSmallerThanJson() {
+        String json = dayJson(LocalDate.of(2025, 9, 4), 15, 0.5);
+
+        byte[] encoded = PriceCodec.encode(PriceSeries.of(ElpriserAPI.parseSimpleJson(json)));
+
+        assertThat(encoded.length * 10).isLessThan(json.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    void decode_rejectsTruncatedOrForeignData() {
+        byte[] encoded = PriceCodec.encode(PriceSeries.of(ElpriserAPI.parseSimpleJson(dayJson(LocalDate.of(2025, 9, 4), 60, 0.5))));
+
+        assertThatThrownBy(() -> PriceCodec.decode(Arrays.copyOf(encoded, encoded.length - 3))).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> PriceCodec.decode("[]".getBytes(StandardCharsets.UTF_8))).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void decode_rejectsRowCountsThatCannotFitInTheData() {
+        // Header followed by 2^32 - 1 rows, and by a ten byte varint with the sign bit set
+        byte[] huge = {'E', 'L', 'P', PriceCodec.VERSION, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+        byte[] negative = {'E', 'L', 'P', PriceCodec.VERSION, 0,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01};
+        // Three rows claimed, but only room for two
+        byte[] encoded = PriceCodec.encode(PriceSeries.of(ElpriserAPI.parseSimpleJson(dayJson(LocalDate.of(2025, 9, 4), 60, 0.5))));
+        byte[] tooMany = Arrays.copyOf(encoded, 5 + 2 + 2 * 7);
+        tooMany[5] = 3;
+
+        for (byte[] data : List.of(huge, negative, tooMany)) {
+            assertThatThrownBy(() -> PriceCodec.decode(data)).isInstanceOf(IOException.class);
+        }
+        assertThatThrownBy(() -> PriceCodec.read(new ByteArrayInputStream(huge))).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void diskCache_isUsedByANewInstance() {
+        AtomicInteger fetches = new AtomicInteger();
+        PriceSource source = (datum, prisklass) -> {
+            fetches.incrementAndGet();
+            return dayJson(datum, 15, 0.3);
+        };
+        LocalDate datum = LocalDate.of(2025, 9, 4);
+
+        List<ElpriserAPI.Elpris> first = new ElpriserAPI(true, tempDir, source).getPriser(datum, ElpriserAPI.Prisklass.SE3);
+        List<ElpriserAPI.Elpris> second = new ElpriserAPI(true, tempDir, source).getPriser(datum, ElpriserAPI.Prisklass.SE3);
+
+        assertThat(fetches.get()).isEqualTo(1);
+        assertThat(second).containsExactlyElementsOf(first);
+    }
+
+    @Test
+    void snapshot_restoresTheMemoryCache() throws IOException {
+        PriceSource source = (datum, prisklass) -> dayJson(datum, 60, 0.2);
+        ElpriserAPI api = new ElpriserAPI(true, null, source);
+        LocalDate datum = LocalDate.of(2025, 9, 4);
+        List<ElpriserAPI.Elpris> original = api.getPriser(datum, ElpriserAPI.Prisklass.SE1);
+        api.getPriser(datum.plusDays(1), ElpriserAPI.Prisklass.SE2);
+        Path snapshot = tempDir.resolve("cache.snapshot");
+
+        assertThat(api.sparaSnapshot(snapshot)).isEqualTo(2);
+
+        ElpriserAPI restored = new ElpriserAPI(true, null, (d, p) -> {
+            throw new IOException("should not fetch");
+        });
+        assertThat(restored.laddaSnapshot(snapshot)).isEqualTo(2);
+        assertThat(restored.getPriser(datum, ElpriserAPI.Prisklass.SE1)).containsExactlyElementsOf(original);
+    }
+
+    @Test
+    void corruptSnapshot_isAnIOException() throws IOException {
+        ElpriserAPI api = new ElpriserAPI(true, null, (datum, prisklass) -> dayJson(datum, 60, 0.2));
+        api.getPriser(LocalDate.of(2025, 9, 4), ElpriserAPI.Prisklass.SE1);
+        Path snapshot = tempDir.resolve("cache.snapshot");
+        api.sparaSnapshot(snapshot);
+        byte[] original = Files.readAllBytes(snapshot);
+        // Magic (4), count (4), key length (2) and the key, then the data length
+        int längd = 4 + 4 + 2 + "2025-09-04_SE1".length();
+
+        byte[] hugeCount = original.clone();
+        ByteBuffer.wrap(hugeCount).putInt(4, Integer.MAX_VALUE);
+        byte[] negativeLength = original.clone();
+        ByteBuffer.wrap(negativeLength).putInt(längd, -1);
+        byte[] hugeLength = original.clone();
+        ByteBuffer.wrap(hugeLength).putInt(längd, Integer.MAX_VALUE - 8);
+
+        for (byte[] data : List.of(hugeCount, negativeLength, hugeLength, Arrays.copyOf(original, original.length - 5))) {
+            Files.write(snapshot, data);
+            assertThatThrownBy(() -> new ElpriserAPI(true, null, (d, p) -> null).laddaSnapshot(snapshot))
+                    .isInstanceOf(IOException.class);
+        }
+    }
+}
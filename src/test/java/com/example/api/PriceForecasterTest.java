@@ -0,0 +1,99 @@
+package com.example.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PriceForecasterTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 9, 10);
+
+    private static PriceSeries day(LocalDate datum, int minutes, double basePrice) {
+        return PriceSeries.of(ElpriserAPI.parseSimpleJson(PriceCodecTest.dayJson(datum, minutes, basePrice)));
+    }
+
+    private static List<Double> sek(PriceForecast prognos) {
+        return prognos.priser().stream().map(ElpriserAPI.Elpris::sekPerKWh).toList();
+    }
+
+    @Test
+    void singleDay_isRepeatedForTheNextDay() {
+        PriceForecaster forecaster = new PriceForecaster();
+        PriceSeries yesterday = day(DAY.minusDays(1), 15, 0.5);
+        forecaster.onNewDay(DAY.minusDays(1), ElpriserAPI.Prisklass.SE3, yesterday);
+
+        PriceForecast prognos = forecaster.forecast(DAY, ElpriserAPI.Prisklass.SE3);
+
+        assertThat(prognos.antalDagar()).isEqualTo(1);
+        assertThat(prognos.priser()).hasSize(96);
+        for (int i = 0; i < 96; i++) {
+            assertThat(prognos.priser().get(i).sekPerKWh()).isEqualTo(yesterday.sekPerKWh(i));
+            assertThat(prognos.priser().get(i).timeStart().toLocalDate()).isEqualTo(DAY);
+        }
+    }
+
+    @Test
+    void daysArrivingOutOfOrder_giveTheSameForecastAsInOrder() {
+        PriceForecaster inOrder = new PriceForecaster();
+        PriceForecaster outOfOrder = new PriceForecaster();
+        for (int back = 5; back >= 1; back--) {
+            inOrder.onNewDay(DAY.minusDays(back), ElpriserAPI.Prisklass.SE1, day(DAY.minusDays(back), 15, back * 0.1));
+        }
+        for (int back : new int[]{1, 3, 5, 2, 4}) {
+            outOfOrder.onNewDay(DAY.minusDays(back), ElpriserAPI.Prisklass.SE1, day(DAY.minusDays(back), 15, back * 0.1));
+        }
+
+        PriceForecast expected = inOrder.forecast(DAY, ElpriserAPI.Prisklass.SE1);
+        PriceForecast actual = outOfOrder.forecast(DAY, ElpriserAPI.Prisklass.SE1);
+
+        assertThat(actual.antalDagar()).isEqualTo(5);
+        assertThat(sek(actual)).containsExactlyElementsOf(sek(expected));
+    }
+
+    @Test
+    void olderDay_isBlendedInBeforeTheNewerOne() {
+        PriceForecaster forecaster = new PriceForecaster(0.5);
+        forecaster.onNewDay(DAY.minusDays(1), ElpriserAPI.Prisklass.SE2, day(DAY.minusDays(1), 60, 1.0));
+        forecaster.onNewDay(DAY.minusDays(2), ElpriserAPI.Prisklass.SE2, day(DAY.minusDays(2), 60, 0.0));
+
+        PriceForecast prognos = forecaster.forecast(DAY, ElpriserAPI.Prisklass.SE2);
+
+        // Start at the older day, then move halfway towards yesterday
+        PriceSeries older = day(DAY.minusDays(2), 60, 0.0);
+        PriceSeries newer = day(DAY.minusDays(1), 60, 1.0);
+        assertThat(prognos.priser()).hasSize(24);
+        assertThat(prognos.priser().getFirst().sekPerKWh())
+                .isCloseTo((older.sekPerKWh(0) + newer.sekPerKWh(0)) / 2, within(1e-12));
+    }
+
+    @Test
+    void changedDay_replacesTheOldOne() {
+        PriceForecaster forecaster = new PriceForecaster();
+        PriceSeries före = day(DAY.minusDays(1), 15, 0.5);
+        PriceSeries efter = day(DAY.minusDays(1), 15, 0.9);
+        forecaster.onNewDay(DAY.minusDays(1), ElpriserAPI.Prisklass.SE4, före);
+
+        forecaster.onChanged(DAY.minusDays(1), ElpriserAPI.Prisklass.SE4, före, efter);
+
+        PriceForecast prognos = forecaster.forecast(DAY, ElpriserAPI.Prisklass.SE4);
+        assertThat(prognos.antalDagar()).isEqualTo(1);
+        assertThat(prognos.priser().getFirst().sekPerKWh()).isEqualTo(efter.sekPerKWh(0));
+    }
+
+    @Test
+    void daysOutsideTheWindow_areIgnored() {
+        PriceForecaster forecaster = new PriceForecaster();
+        LocalDate tooOld = DAY.minusDays(PriceForecaster.HISTORIK_DAGAR + 2);
+        forecaster.onNewDay(DAY.minusDays(1), ElpriserAPI.Prisklass.SE3, day(DAY.minusDays(1), 15, 0.5));
+        forecaster.onNewDay(tooOld, ElpriserAPI.Prisklass.SE3, day(tooOld, 15, 3.0));
+
+        assertThat(forecaster.forecast(DAY, ElpriserAPI.Prisklass.SE3).antalDagar()).isEqualTo(1);
+        // Nothing before the first day, and nothing for another area
+        assertThat(forecaster.forecast(DAY.minusDays(1), ElpriserAPI.Prisklass.SE3).priser()).isEmpty();
+        assertThat(forecaster.forecast(DAY, ElpriserAPI.Prisklass.SE1).priser()).isEmpty();
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceStreamPublisherTest {
+
+    private static final LocalDate FIRST = LocalDate.of(2025, 9, 1);
+
+    // Requests a fixed batch each time the previous batch has arrived
+    private static class BatchSubscriber implements Flow.Subscriber<ElpriserAPI.Elpris> {
+        final List<ElpriserAPI.Elpris> received = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        final int batch;
+        Flow.Subscription subscription;
+        int leftInBatch;
+        Throwable error;
+
+        BatchSubscriber(int batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            leftInBatch = batch;
+            subscription.request(batch);
+        }
+
+        @Override
+        public void onNext(ElpriserAPI.Elpris item) {
+            received.add(item);
+            if (--leftInBatch == 0) {
+                leftInBatch = batch;
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+
+    @Test
+    void streamsAllDaysInOrderAndSkipsMissingDays() throws InterruptedException {
+        LocalDate missing = FIRST.plusDays(1);
+        ElpriserAPI api = new ElpriserAPI(true, null,
+                (datum, prisklass) -> datum.equals(missing) ? null : PriceCodecTest.dayJson(datum, 60, 0.2));
+        BatchSubscriber subscriber = new BatchSubscriber(7);
+
+        api.streamPriser(FIRST, FIRST.plusDays(2), ElpriserAPI.Prisklass.SE3).subscribe(subscriber);
+
+        assertThat(subscriber.done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(subscriber.error).isNull();
+        assertThat(subscriber.received).hasSize(48);
+        assertThat(subscriber.received.get(0).timeStart().toLocalDate()).isEqualTo(FIRST);
+        assertThat(subscriber.received.get(47).timeStart().toLocalDate()).isEqualTo(FIRST.plusDays(2));
+    }
+
+    @Test
+    void failedFetch_signalsErrorInsteadOfSkippingTheDay() throws InterruptedException {
+        LocalDate broken = FIRST.plusDays(1);
+        ElpriserAPI api = new ElpriserAPI(true, null, (datum, prisklass) -> {
+            if (datum.equals(broken)) {
+                throw new IOException("HTTP 503");
+            }
+            return PriceCodecTest.dayJson(datum, 60, 0.2);
+        });
+        BatchSubscriber subscriber = new BatchSubscriber(7);
+
+        api.streamPriser(FIRST, FIRST.plusDays(2), ElpriserAPI.Prisklass.SE3).subscribe(subscriber);
+
+        assertThat(subscriber.done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(subscriber.error).isInstanceOf(IOException.class).hasMessage("HTTP 503");
+        // Only the first day arrives, nothing from the days after the failure
+        assertThat(subscriber.received).hasSize(24);
+    }
+
+    @Test
+    void fetchesNextDayOnlyWhenDemanded() throws InterruptedException {
+        AtomicInteger fetches = new AtomicInteger();
+        ElpriserAPI api = new ElpriserAPI(true, null, (datum, prisklass) -> {
+            fetches.incrementAndGet();
+            return PriceCodecTest.dayJson(datum, 15, 0.2);
+        });
+        CountDownLatch fiveReceived = new CountDownLatch(5);
+        List<ElpriserAPI.Elpris> received = new CopyOnWriteArrayList<>();
+
+        api.streamPriser(FIRST, FIRST.plusDays(365), ElpriserAPI.Prisklass.SE1).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(5);
+            }
+
+            @Override
+            public void onNext(ElpriserAPI.Elpris item) {
+                received.add(item);
+                fiveReceived.countDown();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        assertThat(fiveReceived.await(10, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100); // Give a misbehaving publisher time to push more
+        assertThat(received).hasSize(5);
+        assertThat(fetches.get()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidRequestFromInsideOnNext_signalsErrorAfterOnNextReturns() throws InterruptedException {
+        ElpriserAPI api = new ElpriserAPI(true, null, (datum, prisklass) -> PriceCodecTest.dayJson(datum, 60, 0.2));
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicBoolean inOnNext = new AtomicBoolean();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+
+        api.streamPriser(FIRST, FIRST.plusDays(1), ElpriserAPI.Prisklass.SE4).subscribe(new Flow.Subscriber<>() {
+            Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ElpriserAPI.Elpris item) {
+                inOnNext.set(true);
+                subscription.request(-1);
+                inOnNext.set(false);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                overlapped.compareAndSet(false, inOnNext.get());
+                errors.add(throwable);
+                done.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                done.countDown();
+            }
+        });
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(errors).singleElement().isInstanceOf(IllegalArgumentException.class);
+        assertThat(overlapped).isFalse();
+    }
+
+    @Test
+    void invalidRequest_signalsError() throws InterruptedException {
+        ElpriserAPI api = new ElpriserAPI(true, null, (datum, prisklass) -> PriceCodecTest.dayJson(datum, 60, 0.2));
+        BatchSubscriber subscriber = new BatchSubscriber(0);
+
+        api.streamPriser(FIRST, FIRST, ElpriserAPI.Prisklass.SE2).subscribe(subscriber);
+
+        assertThat(subscriber.done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+    }
+}
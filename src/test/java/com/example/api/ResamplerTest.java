@@ -0,0 +1,61 @@
+package com.example.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ResamplerTest {
+
+    private static PriceSeries day(LocalDate datum, int minutes) {
+        return PriceSeries.of(ElpriserAPI.parseSimpleJson(PriceCodecTest.dayJson(datum, minutes, 0.5)));
+    }
+
+    @Test
+    void quartersToHours_averagesEachLocalHourIncludingDstDays() {
+        for (LocalDate datum : List.of(LocalDate.of(2025, 9, 4), LocalDate.of(2025, 3, 30), LocalDate.of(2025, 10, 26))) {
+            PriceSeries kvartar = day(datum, 15);
+
+            PriceSeries timmar = Resampler.resample(kvartar, Resolution.HOUR);
+
+            assertThat(timmar.size()).isEqualTo(kvartar.size() / 4);
+            assertThat(Resampler.hasResolution(timmar, Resolution.HOUR)).isTrue();
+            for (int h = 0; h < timmar.size(); h++) {
+                double sum = 0;
+                for (int q = 0; q < 4; q++) {
+                    sum += kvartar.sekPerKWh(h * 4 + q);
+                }
+                assertThat(timmar.sekPerKWh(h)).isEqualTo(sum / 4);
+                assertThat(timmar.startEpochSecond(h)).isEqualTo(kvartar.startEpochSecond(h * 4));
+                assertThat(timmar.elpris(h).timeEnd()).isEqualTo(kvartar.elpris(h * 4 + 3).timeEnd());
+            }
+        }
+    }
+
+    @Test
+    void hoursToQuartersAndBack_givesTheSameSeries() {
+        PriceSeries timmar = day(LocalDate.of(2025, 10, 26), 60);
+
+        PriceSeries kvartar = Resampler.resample(timmar, Resolution.QUARTER_HOUR);
+        PriceSeries tillbaka = Resampler.resample(kvartar, Resolution.HOUR);
+
+        assertThat(kvartar.size()).isEqualTo(100);
+        assertThat(tillbaka.toList()).containsExactlyElementsOf(timmar.toList());
+        assertThat(Resampler.resample(timmar, Resolution.HOUR)).isSameAs(timmar);
+    }
+
+    @Test
+    void consumptionWeights_shiftTheHourlyPrice() {
+        PriceSeries kvartar = day(LocalDate.of(2025, 9, 4), 15);
+        double[] förbrukning = new double[kvartar.size()];
+        förbrukning[0] = 1.0; // Allt i första kvarten under timme 0, inget under timme 1
+
+        PriceSeries timmar = Resampler.resample(kvartar, Resolution.HOUR, förbrukning);
+
+        assertThat(timmar.sekPerKWh(0)).isCloseTo(kvartar.sekPerKWh(0), within(1e-12));
+        assertThat(timmar.sekPerKWh(1)).isEqualTo(Resampler.resample(kvartar, Resolution.HOUR).sekPerKWh(1));
+    }
+}
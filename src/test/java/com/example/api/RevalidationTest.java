@@ -0,0 +1,142 @@
+package com.example.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for revalidating cached days against a source that corrects its prices.
+ */
+class RevalidationTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 9, 4);
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        ElpriserAPI.clearMockResponse();
+    }
+
+    // A source with one body per run that answers 304 when it gets the current ETag back
+    static final class CorrectingSource implements PriceSource {
+        final AtomicReference<String> body = new AtomicReference<>();
+        final AtomicInteger fullResponses = new AtomicInteger();
+        final AtomicInteger notModified = new AtomicInteger();
+
+        @Override
+        public String fetch(LocalDate datum, ElpriserAPI.Prisklass prisklass) {
+            return fetch(datum, prisklass, null).body();
+        }
+
+        @Override
+        public Response fetch(LocalDate datum, ElpriserAPI.Prisklass prisklass, String etag) {
+            String current = body.get();
+            String currentEtag = "\"" + Integer.toHexString(current.hashCode()) + "\"";
+            if (currentEtag.equals(etag)) {
+                notModified.incrementAndGet();
+                return new Response(null, etag, true);
+            }
+            fullResponses.incrementAndGet();
+            return new Response(current, currentEtag, false);
+        }
+    }
+
+    @Test
+    void correctedDay_isReplacedEverywhereAndListenersAreTold() {
+        CorrectingSource source = new CorrectingSource();
+        source.body.set(PriceCodecTest.dayJson(DAY, 15, 0.5));
+        ElpriserAPI api = new ElpriserAPI(true, tempDir, source);
+        List<PriceSeries[]> changes = new ArrayList<>();
+        api.addListener(new PriceListener() {
+            @Override
+            public void onNewDay(LocalDate datum, ElpriserAPI.Prisklass prisklass, PriceSeries priser) {
+            }
+
+            @Override
+            public void onChanged(LocalDate datum, ElpriserAPI.Prisklass prisklass, PriceSeries före, PriceSeries efter) {
+                changes.add(new PriceSeries[]{före, efter});
+            }
+        });
+        List<ElpriserAPI.Elpris> original = api.getPriser(DAY, ElpriserAPI.Prisklass.SE3);
+        assertThat(api.getPriser(DAY, ElpriserAPI.Prisklass.SE3, Resolution.HOUR)).hasSize(24);
+
+        // Same ETag: the source answers 304 and nothing changes
+        assertThat(api.omvalidera(DAY, ElpriserAPI.Prisklass.SE3)).isFalse();
+        assertThat(source.notModified).hasValue(1);
+        assertThat(api.getPriser(DAY, ElpriserAPI.Prisklass.SE3)).isSameAs(original);
+
+        source.body.set(PriceCodecTest.dayJson(DAY, 15, 0.7));
+        assertThat(api.omvalidera(DAY, ElpriserAPI.Prisklass.SE3)).isTrue();
+
+        List<ElpriserAPI.Elpris> corrected = ElpriserAPI.parseSimpleJson(source.body.get());
+        assertThat(api.getPriser(DAY, ElpriserAPI.Prisklass.SE3)).containsExactlyElementsOf(corrected);
+        assertThat(api.getPriser(DAY, ElpriserAPI.Prisklass.SE3, Resolution.HOUR).getFirst().sekPerKWh())
+                .isEqualTo(Resampler.resample(PriceSeries.of(corrected), Resolution.HOUR).sekPerKWh(0));
+        assertThat(api.getSammanfattning(DAY, ElpriserAPI.Prisklass.SE3))
+                .isEqualTo(DailySummary.of(DAY, ElpriserAPI.Prisklass.SE3, corrected));
+        assertThat(changes).hasSize(1);
+        assertThat(changes.getFirst()[0].toList()).containsExactlyElementsOf(original);
+        assertThat(changes.getFirst()[1].toList()).containsExactlyElementsOf(corrected);
+        // Only one day seen so far, so the forecast is the corrected day
+        assertThat(api.getPrognos(DAY.plusDays(1), ElpriserAPI.Prisklass.SE3).priser().getFirst().sekPerKWh())
+                .isEqualTo(corrected.getFirst().sekPerKWh());
+
+        // A new instance on the same cache directory gets the corrected day from disk
+        ElpriserAPI fresh = new ElpriserAPI(true, tempDir, (datum, prisklass) -> {
+            throw new AssertionError("should come from the cache");
+        });
+        assertThat(fresh.getPriser(DAY, ElpriserAPI.Prisklass.SE3)).containsExactlyElementsOf(corrected);
+    }
+
+    @Test
+    void sameBodyWithoutEtag_keepsTheCachedDay() {
+        String json = PriceCodecTest.dayJson(DAY, 60, 0.5);
+        AtomicReference<String> body = new AtomicReference<>(json);
+        ElpriserAPI api = new ElpriserAPI(true, null, (datum, prisklass) -> body.get());
+        List<ElpriserAPI.Elpris> original = api.getPriser(DAY, ElpriserAPI.Prisklass.SE1);
+
+        assertThat(api.omvalidera(DAY, ElpriserAPI.Prisklass.SE1)).isFalse();
+
+        // Same prices written differently: parsed, found equal, kept
+        body.set(json.replace(",{", ",\n{"));
+        assertThat(api.omvalidera(DAY, ElpriserAPI.Prisklass.SE1)).isFalse();
+        assertThat(api.getPriser(DAY, ElpriserAPI.Prisklass.SE1)).isSameAs(original);
+
+        // A day that isn't cached is never fetched by the revalidation
+        assertThat(api.omvalidera(DAY.plusDays(1), ElpriserAPI.Prisklass.SE1)).isFalse();
+    }
+
+    @Test
+    void schedule_picksUpCorrectionsOfToday() throws InterruptedException {
+        LocalDate today = LocalDate.now(TimestampCodec.STOCKHOLM);
+        AtomicReference<String> body = new AtomicReference<>(PriceCodecTest.dayJson(today, 60, 0.5));
+        ElpriserAPI api = new ElpriserAPI(true, null, (datum, prisklass) -> datum.equals(today) ? body.get() : null);
+        api.getPriser(today, ElpriserAPI.Prisklass.SE4);
+        body.set(PriceCodecTest.dayJson(today, 60, 0.9));
+
+        api.startaOmvalidering(Duration.ofMillis(20), 1);
+        try {
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (api.getPriser(today, ElpriserAPI.Prisklass.SE4).getFirst().sekPerKWh() != 0.9
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            api.stoppaOmvalidering();
+        }
+
+        assertThat(api.getPriser(today, ElpriserAPI.Prisklass.SE4).getFirst().sekPerKWh()).isEqualTo(0.9);
+    }
+}
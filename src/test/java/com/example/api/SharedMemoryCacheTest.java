@@ -0,0 +1,144 @@
+package com.example.api;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SharedMemoryCacheTest {
+
+    @TempDir
+    Path tmp;
+
+    // Körs i en egen JVM av testet nedan: skriver en nyckel och avslutar
+    public static class Writer {
+        public static void main(String[] args) throws IOException {
+            new SharedMemoryCache(Path.of(args[0])).put(args[1], args[2].getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void entryWrittenByAnotherJvm_isVisible() throws Exception {
+        Path file = tmp.resolve("delad.cache");
+        SharedMemoryCache cache = new SharedMemoryCache(file);
+        cache.put("före", new byte[]{1, 2, 3});
+
+        String java = ProcessHandle.current().info().command().orElse("java");
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                Writer.class.getName(), file.toString(), "2025-09-04_SE3", "skrivet av en annan process")
+                .inheritIO().start();
+        assertThat(process.waitFor(60, TimeUnit.SECONDS)).isTrue();
+        assertThat(process.exitValue()).isZero();
+
+        assertThat(new String(cache.get("2025-09-04_SE3"), StandardCharsets.UTF_8)).isEqualTo("skrivet av en annan process");
+        assertThat(cache.get("före")).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void overwriteAndClearWhenFull() throws IOException {
+        SharedMemoryCache cache = new SharedMemoryCache(tmp.resolve("liten.cache"), 512 * 1024);
+        cache.put("a", new byte[]{1});
+        cache.put("a", new byte[]{2, 2});
+        assertThat(cache.get("a")).containsExactly(2, 2);
+        assertThat(cache.get("b")).isNull();
+
+        // Dataområdet är ungefär 128 kB, så efter ett tag töms cachen och börjar om
+        byte[] stor = new byte[10_000];
+        for (int i = 0; i < 50; i++) {
+            cache.put("stor" + i, stor);
+        }
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("stor49")).hasSize(10_000);
+    }
+
+    // Skriver över bytes i filen på den givna positionen
+    private static void skriv(Path file, long position, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(bytes, position);
+        }
+    }
+
+    @Test
+    void corruptHeader_givesAnEmptyCache() throws IOException {
+        Path file = tmp.resolve("trasig.cache");
+        try (SharedMemoryCache cache = new SharedMemoryCache(file, 512 * 1024)) {
+            cache.put("a", new byte[]{1});
+        }
+        // Fler platser än filen rymmer
+        skriv(file, 4, ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE));
+
+        try (SharedMemoryCache cache = new SharedMemoryCache(file, 512 * 1024)) {
+            assertThat(cache.get("a")).isNull();
+            cache.put("b", new byte[]{2});
+            assertThat(cache.get("b")).containsExactly(2);
+        }
+    }
+
+    @Test
+    void slotPointingOutsideTheFile_isAMiss() throws IOException {
+        Path file = tmp.resolve("trasig.cache");
+        try (SharedMemoryCache cache = new SharedMemoryCache(file, 512 * 1024)) {
+            cache.put("a", new byte[]{1});
+            cache.put("b", new byte[]{2});
+        }
+        // Peka om varje använd plats: en utanför filen, en med negativ längd
+        ByteBuffer innehåll = ByteBuffer.wrap(Files.readAllBytes(file));
+        boolean första = true;
+        for (int slot = 0; slot < 16384; slot++) {
+            int pos = 64 + slot * 24;
+            if (innehåll.getLong(pos) != 0) {
+                if (första) {
+                    skriv(file, pos + 8, ByteBuffer.allocate(8).putLong(0, Long.MAX_VALUE / 2));
+                } else {
+                    skriv(file, pos + 16, ByteBuffer.allocate(4).putInt(0, -5));
+                }
+                första = false;
+            }
+        }
+
+        try (SharedMemoryCache cache = new SharedMemoryCache(file, 512 * 1024)) {
+            assertThat(cache.get("a")).isNull();
+            assertThat(cache.get("b")).isNull();
+            cache.put("c", new byte[]{3});
+            assertThat(cache.get("c")).containsExactly(3);
+        }
+    }
+
+    @Test
+    void secondApiInstance_getsDayFromSharedCacheWithoutSource() throws IOException {
+        Path cacheDir = tmp.resolve("cache");
+        AtomicInteger anrop = new AtomicInteger();
+        LocalDate datum = LocalDate.of(2025, 9, 4);
+        String json = PriceCodecTest.dayJson(datum, 15, 0.4);
+        ElpriserAPI första = new ElpriserAPI(true, cacheDir, (d, p) -> {
+            anrop.incrementAndGet();
+            return json;
+        });
+        första.getPriser(datum, ElpriserAPI.Prisklass.SE3);
+
+        // Ta bort disk-cachen så att bara den delade cachen finns kvar
+        try (Stream<Path> filer = Files.walk(cacheDir.resolve("dagar"))) {
+            filer.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+        }
+        ElpriserAPI andra = new ElpriserAPI(true, cacheDir, (d, p) -> {
+            throw new IOException("Nätverket ska inte användas");
+        });
+
+        assertThat(andra.getPriser(datum, ElpriserAPI.Prisklass.SE3))
+                .containsExactlyElementsOf(ElpriserAPI.parseSimpleJson(json));
+        assertThat(anrop).hasValue(1);
+    }
+}
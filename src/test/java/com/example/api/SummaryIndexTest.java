@@ -0,0 +1,101 @@
+package com.example.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SummaryIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        ElpriserAPI.clearMockResponse();
+    }
+
+    private static DailySummary summary(LocalDate datum, ElpriserAPI.Prisklass prisklass, double basePrice) {
+        return DailySummary.of(datum, prisklass, ElpriserAPI.parseSimpleJson(PriceCodecTest.dayJson(datum, 15, basePrice)));
+    }
+
+    @Test
+    void reopenedIndex_reloadsEveryPersistedSummary() {
+        Path file = tempDir.resolve("index.bin");
+        SummaryIndex index = new SummaryIndex(file);
+        DailySummary first = summary(LocalDate.of(2025, 9, 4), ElpriserAPI.Prisklass.SE3, 0.5);
+        DailySummary second = summary(LocalDate.of(2025, 10, 26), ElpriserAPI.Prisklass.SE4, 0.8);
+        index.put(first, true);
+        index.put(second, true);
+        index.put(summary(LocalDate.of(2025, 9, 5), ElpriserAPI.Prisklass.SE1, 0.1), false);
+        // A later record for the same day wins
+        DailySummary replaced = summary(LocalDate.of(2025, 9, 4), ElpriserAPI.Prisklass.SE3, 0.6);
+        index.put(replaced, true);
+
+        SummaryIndex reopened = new SummaryIndex(file);
+
+        assertThat(reopened.size()).isEqualTo(2);
+        assertThat(reopened.get(LocalDate.of(2025, 9, 4), ElpriserAPI.Prisklass.SE3)).isEqualTo(replaced);
+        assertThat(reopened.get(LocalDate.of(2025, 10, 26), ElpriserAPI.Prisklass.SE4)).isEqualTo(second);
+        assertThat(reopened.range(LocalDate.of(2025, 9, 1), LocalDate.of(2025, 12, 31), ElpriserAPI.Prisklass.SE3))
+                .containsExactly(replaced);
+    }
+
+    @Test
+    void garbageAfterValidRecords_isDroppedAndNewRecordsStillLoad() throws IOException {
+        Path file = tempDir.resolve("index.bin");
+        DailySummary good = summary(LocalDate.of(2025, 9, 4), ElpriserAPI.Prisklass.SE3, 0.5);
+        new SummaryIndex(file).put(good, true);
+        long validLength = Files.size(file);
+        // A whole record with an unknown price area, then half a record
+        byte[] garbage = new byte[SummaryIndex.RECORD + SummaryIndex.RECORD / 2];
+        Arrays.fill(garbage, (byte) 0x7f);
+        Files.write(file, garbage, StandardOpenOption.APPEND);
+
+        SummaryIndex reopened = new SummaryIndex(file);
+        assertThat(reopened.get(LocalDate.of(2025, 9, 4), ElpriserAPI.Prisklass.SE3)).isEqualTo(good);
+        assertThat(reopened.get(LocalDate.of(2025, 9, 5), ElpriserAPI.Prisklass.SE3)).isNull();
+        assertThat(Files.size(file)).isEqualTo(validLength);
+
+        DailySummary later = summary(LocalDate.of(2025, 9, 5), ElpriserAPI.Prisklass.SE3, 0.7);
+        reopened.put(later, true);
+        SummaryIndex again = new SummaryIndex(file);
+        assertThat(again.get(LocalDate.of(2025, 9, 4), ElpriserAPI.Prisklass.SE3)).isEqualTo(good);
+        assertThat(again.get(LocalDate.of(2025, 9, 5), ElpriserAPI.Prisklass.SE3)).isEqualTo(later);
+    }
+
+    @Test
+    void foreignFile_startsOver() throws IOException {
+        Path file = tempDir.resolve("index.bin");
+        Files.write(file, new byte[]{1, 2});
+
+        SummaryIndex index = new SummaryIndex(file);
+        assertThat(index.size()).isZero();
+        DailySummary good = summary(LocalDate.of(2025, 9, 4), ElpriserAPI.Prisklass.SE2, 0.5);
+        index.put(good, true);
+
+        assertThat(new SummaryIndex(file).get(LocalDate.of(2025, 9, 4), ElpriserAPI.Prisklass.SE2)).isEqualTo(good);
+    }
+
+    @Test
+    void getSammanfattningar_readsIndexedDaysWithoutFetching() {
+        LocalDate datum = LocalDate.of(2025, 9, 4);
+        ElpriserAPI api = new ElpriserAPI(true, tempDir, (d, p) -> PriceCodecTest.dayJson(d, 60, 0.5));
+        api.getPriser(datum, ElpriserAPI.Prisklass.SE3);
+        api.getPriser(datum.plusDays(2), ElpriserAPI.Prisklass.SE3);
+
+        ElpriserAPI reopened = new ElpriserAPI(true, tempDir, (d, p) -> d.equals(datum.plusDays(1)) ? PriceCodecTest.dayJson(d, 60, 0.9) : null);
+
+        assertThat(reopened.getSammanfattningar(datum, datum.plusDays(3), ElpriserAPI.Prisklass.SE3))
+                .extracting(DailySummary::datum)
+                .containsExactly(datum, datum.plusDays(1), datum.plusDays(2));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimestampCodecTest {
+
+    @Test
+    void parse_matchesZonedDateTimeParse() {
+        String[] samples = {
+                "2025-09-04T00:00:00+02:00",
+                "2025-03-30T01:45:00+01:00",
+                "2025-03-30T03:00:00+02:00",
+                "2025-10-26T02:15:00+01:00",
+                "2024-02-29T23:00:00+01:00",
+                "1999-12-31T23:59:59-05:30"
+        };
+        for (String sample : samples) {
+            assertThat(TimestampCodec.parse(sample)).isEqualTo(ZonedDateTime.parse(sample));
+            assertThat(TimestampCodec.toEpochSecond(sample)).isEqualTo(ZonedDateTime.parse(sample).toEpochSecond());
+        }
+    }
+
+    @Test
+    void parse_fallsBackForOtherFormats() {
+        assertThat(TimestampCodec.parse("2025-09-04T00:00:00Z")).isEqualTo(ZonedDateTime.parse("2025-09-04T00:00:00Z"));
+    }
+
+    @Test
+    void stockholmOffset_matchesZoneRules() {
+        long start = ZonedDateTime.parse("2023-01-01T00:00:00+01:00").toEpochSecond();
+        long end = ZonedDateTime.parse("2027-01-01T00:00:00+01:00").toEpochSecond();
+        for (long t = start; t < end; t += 900) {
+            int expected = TimestampCodec.STOCKHOLM.getRules().getOffset(Instant.ofEpochSecond(t)).getTotalSeconds();
+            assertThat(TimestampCodec.stockholmOffsetSeconds(t)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void labels_matchDateTimeFormatter() {
+        ZonedDateTime time = ZonedDateTime.parse("2025-10-26T02:45:00+01:00");
+        assertThat(TimestampCodec.hourLabel(time)).isEqualTo(time.format(DateTimeFormatter.ofPattern("HH")));
+        assertThat(TimestampCodec.hourMinuteLabel(time)).isEqualTo(time.format(DateTimeFormatter.ofPattern("HH:mm")));
+        assertThat(TimestampCodec.hourMinuteLabel(time.toEpochSecond())).isEqualTo("02:45");
+    }
+}